@@ -3,6 +3,7 @@ plugins {
     `java-library`
     `maven-publish`
     id("com.github.ben-manes.versions") version "0.36.0"
+    id("me.champeau.gradle.jmh") version "0.5.3"
 }
 
 group = "com.elex-project"
@@ -54,6 +55,16 @@ tasks.test {
     useJUnitPlatform()
 }
 
+jmh {
+    jmhVersion = "1.27"
+    profilers = listOf("gc")
+    resultFormat = "JSON"
+    fork = 1
+    warmupIterations = 2
+    iterations = 5
+    duplicateClassesStrategy = DuplicatesStrategy.EXCLUDE
+}
+
 tasks.javadoc {
     if (JavaVersion.current().isJava9Compatible) {
         (options as StandardJavadocDocletOptions).addBooleanOption("html5", true)
@@ -120,6 +131,7 @@ dependencies {
 
     api("org.apache.poi:poi:4.1.2")
     api("org.apache.poi:poi-ooxml:4.1.2")
+    implementation("org.apache.commons:commons-compress:1.19")
 
     testImplementation("org.junit.jupiter:junit-jupiter:5.7.0")
     testRuntimeOnly("org.junit.jupiter:junit-jupiter-engine:5.7.0")
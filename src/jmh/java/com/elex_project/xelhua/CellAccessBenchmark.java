@@ -0,0 +1,87 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static com.elex_project.xelhua.Xlsx.*;
+
+/**
+ * Reading cells by index and by header name
+ *
+ * @author Elex
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CellAccessBenchmark {
+	@Param({"10000", "100000"})
+	public int rows;
+
+	private Workbook workbook;
+	private Sheet sheet;
+	private Row headerRow;
+	private HeaderIndex headerIndex;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		workbook = Fixtures.workbook(rows);
+		sheet = getSheet(workbook, "Data");
+		headerRow = getRow(sheet, 0);
+		headerIndex = new HeaderIndex(headerRow);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		workbook.close();
+	}
+
+	@Benchmark
+	public void byIndex(final Blackhole blackhole) {
+		for (int rowNum = 1; rowNum <= rows; rowNum++) {
+			final Row row = getRow(sheet, rowNum);
+			blackhole.consume(readNumeric(getCell(row, 2)));
+			blackhole.consume(readString(getCell(row, 1)));
+		}
+	}
+
+	@Benchmark
+	public void byHeaderRow(final Blackhole blackhole) {
+		for (int rowNum = 1; rowNum <= rows; rowNum++) {
+			final Row row = getRow(sheet, rowNum);
+			blackhole.consume(readNumeric(getCell(row, "Price", headerRow)));
+			blackhole.consume(readString(getCell(row, "Name", headerRow)));
+		}
+	}
+
+	@Benchmark
+	public void byHeaderIndex(final Blackhole blackhole) {
+		for (int rowNum = 1; rowNum <= rows; rowNum++) {
+			final Row row = getRow(sheet, rowNum);
+			blackhole.consume(readNumeric(row, "Price", headerIndex));
+			blackhole.consume(readString(row, "Name", headerIndex));
+		}
+	}
+
+	@Benchmark
+	public ColumnarTable columnar() {
+		return new ColumnarReader()
+				.numeric("Price")
+				.string("Name")
+				.read(sheet);
+	}
+}
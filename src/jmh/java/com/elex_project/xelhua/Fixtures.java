@@ -0,0 +1,87 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+
+import static com.elex_project.xelhua.Xlsx.*;
+
+/**
+ * Fixtures of benchmarks, generated on the fly.
+ *
+ * @author Elex
+ */
+final class Fixtures {
+	static final String[] HEADER = {"Id", "Name", "Price", "Date", "Sold", "Note"};
+	static final LocalDate DATE = LocalDate.of(2021, 1, 1);
+
+	private Fixtures() {
+	}
+
+	/**
+	 * Write a header and rows of sample data into a sheet
+	 *
+	 * @param sheet sheet
+	 * @param rows  number of rows, except a header
+	 */
+	static void fill(@NotNull final Sheet sheet, final int rows) {
+		final RowWriter<Integer> writer = new RowWriter<Integer>(sheet)
+				.numeric(i -> i)
+				.string(i -> "Item " + i)
+				.numeric(i -> i * 1.5)
+				.date(i -> DATE.plusDays(i % 3650))
+				.bool(i -> i % 2 == 0)
+				.string(i -> i % 10 == 0 ? "Note of item " + i : null);
+		for (int colNum = 0; colNum < HEADER.length; colNum++) {
+			write(getCell(sheet, 0, colNum), HEADER[colNum]);
+		}
+		for (int i = 1; i <= rows; i++) {
+			writer.write(i, i);
+		}
+	}
+
+	/**
+	 * A workbook in memory
+	 *
+	 * @param rows number of rows
+	 * @return xssf workbook
+	 */
+	@NotNull
+	static Workbook workbook(final int rows) {
+		final Workbook workbook = createWorkbook();
+		fill(getSheet(workbook, "Data"), rows);
+		return workbook;
+	}
+
+	/**
+	 * A xlsx file, written with a streaming workbook
+	 *
+	 * @param rows number of rows
+	 * @return temp file, deleted on exit
+	 * @throws IOException couldn't write
+	 */
+	@NotNull
+	static File file(final int rows) throws IOException {
+		final File file = File.createTempFile("xelhua-", ".xlsx");
+		file.deleteOnExit();
+		final SXSSFWorkbook workbook = createStreamingWorkbook();
+		fill(getSheet(workbook, "Data"), rows);
+		writeOut(workbook, file);
+		close(workbook);
+		return file;
+	}
+}
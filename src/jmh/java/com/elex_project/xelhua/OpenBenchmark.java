@@ -0,0 +1,95 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.apache.poi.ss.usermodel.Workbook;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import static com.elex_project.xelhua.Xlsx.*;
+
+/**
+ * Opening files.
+ * A workbook of 1M rows would not fit in a usual heap, so it's left to the streaming reader.
+ *
+ * @author Elex
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class OpenBenchmark {
+	@Param({"10000", "100000"})
+	public int rows;
+
+	private File file;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		file = Fixtures.file(rows);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		file.delete();
+	}
+
+	@Benchmark
+	public int getWorkbookFromFile() throws IOException {
+		try (Workbook workbook = getWorkbook(file, true)) {
+			return workbook.getSheetAt(0).getLastRowNum();
+		}
+	}
+
+	@Benchmark
+	public int getWorkbookFromStream() throws IOException {
+		try (InputStream inputStream = new FileInputStream(file);
+		     Workbook workbook = getXSSFWorkbook(inputStream)) {
+			return workbook.getSheetAt(0).getLastRowNum();
+		}
+	}
+
+	@Benchmark
+	public int streamingReader() throws IOException {
+		final int[] count = new int[1];
+		try (XlsxReader reader = XlsxReader.open(file)) {
+			reader.read(0, row -> count[0]++);
+		}
+		return count[0];
+	}
+
+	@State(Scope.Benchmark)
+	public static class Large {
+		private File file;
+
+		@Setup(Level.Trial)
+		public void setUp() throws IOException {
+			file = Fixtures.file(1_000_000);
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			file.delete();
+		}
+	}
+
+	@Benchmark
+	public int streamingReaderLarge(final Large large) throws IOException {
+		final int[] count = new int[1];
+		try (XlsxReader reader = XlsxReader.open(large.file)) {
+			reader.read(0, row -> count[0]++);
+		}
+		return count[0];
+	}
+}
@@ -0,0 +1,73 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static com.elex_project.xelhua.Xlsx.*;
+
+/**
+ * Saving streaming workbooks, from 10k to 1M rows, with compression levels.
+ * Bytes written are reported as a secondary result, "bytes", summed over iterations.
+ *
+ * @author Elex
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SaveBenchmark {
+	@Param({"10000", "100000", "1000000"})
+	public int rows;
+
+	@Param({"-1", "0", "1", "9"})
+	public int compressionLevel;
+
+	private SXSSFWorkbook workbook;
+	private File file;
+
+	@Setup(Level.Invocation)
+	public void setUp() throws IOException {
+		workbook = createStreamingWorkbook();
+		Fixtures.fill(getSheet(workbook, "Data"), rows);
+		file = File.createTempFile("xelhua-", ".xlsx");
+	}
+
+	@TearDown(Level.Invocation)
+	public void tearDown() throws IOException {
+		close(workbook);
+		file.delete();
+	}
+
+	/**
+	 * Size of a saved file
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Size {
+		public long bytes;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			bytes = 0;
+		}
+	}
+
+	@Benchmark
+	public File writeOut(final Size size) throws IOException {
+		Xlsx.writeOut(workbook, file, new WriteOptions().compressionLevel(compressionLevel));
+		size.bytes += file.length();
+		return file;
+	}
+}
@@ -0,0 +1,58 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static com.elex_project.xelhua.Xlsx.*;
+
+/**
+ * Auto width, measured with AWT and estimated
+ *
+ * @author Elex
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class WidthBenchmark {
+	@Param({"10000", "100000"})
+	public int rows;
+
+	private Workbook workbook;
+	private Sheet sheet;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		workbook = Fixtures.workbook(rows);
+		sheet = getSheet(workbook, "Data");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		workbook.close();
+	}
+
+	@Benchmark
+	public Sheet autoWidthMeasured() {
+		autoWidth(sheet);
+		return sheet;
+	}
+
+	@Benchmark
+	public Sheet autoWidthEstimated() {
+		Xlsx.autoWidthEstimated(sheet);
+		return sheet;
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.apache.poi.ss.usermodel.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static com.elex_project.xelhua.Xlsx.*;
+
+/**
+ * Writing cells and creating styles
+ *
+ * @author Elex
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class WriteBenchmark {
+	@Param({"10000", "100000"})
+	public int rows;
+
+	private Workbook workbook;
+	private Sheet sheet;
+
+	@Setup(Level.Invocation)
+	public void setUp() {
+		workbook = createWorkbook();
+		sheet = getSheet(workbook, "Data");
+	}
+
+	@TearDown(Level.Invocation)
+	public void tearDown() throws IOException {
+		workbook.close();
+	}
+
+	@Benchmark
+	public Sheet dates() {
+		for (int rowNum = 0; rowNum < rows; rowNum++) {
+			write(getCell(sheet, rowNum, 0), Fixtures.DATE.plusDays(rowNum % 3650), workbook);
+		}
+		return sheet;
+	}
+
+	@Benchmark
+	public Sheet rowWriter() {
+		Fixtures.fill(sheet, rows);
+		return sheet;
+	}
+
+	@Benchmark
+	public Workbook styleBuilders() {
+		for (int i = 0; i < rows / 100; i++) {
+			final Font font = new FontBuilder(workbook).bold().height(12).get();
+			new CellStyleBuilder(workbook).font(font).background(IndexedColors.YELLOW).get();
+		}
+		return workbook;
+	}
+
+	@Benchmark
+	public Workbook internedStyleBuilders() {
+		for (int i = 0; i < rows / 100; i++) {
+			final Font font = new FontBuilder(workbook, true).bold().height(12).get();
+			new CellStyleBuilder(workbook, true).font(font).background(IndexedColors.YELLOW).get();
+		}
+		return workbook;
+	}
+}
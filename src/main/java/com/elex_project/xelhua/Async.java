@@ -0,0 +1,94 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor of blocking I/O, and futures of it.
+ *
+ * @author Elex
+ */
+final class Async {
+	private Async() {
+	}
+
+	/**
+	 * Blocking I/O, which is run by an executor
+	 *
+	 * @param <T> type of a result
+	 */
+	@FunctionalInterface
+	interface Task<T> {
+		T run() throws Exception;
+	}
+
+	/**
+	 * Default executor for blocking I/O.
+	 * It starts a virtual thread for each task if the runtime has them,
+	 * otherwise a cached pool of daemon threads.
+	 *
+	 * @return executor
+	 */
+	@NotNull
+	static Executor defaultExecutor() {
+		return Holder.EXECUTOR;
+	}
+
+	/**
+	 * Run a task on an executor
+	 *
+	 * @param task     task
+	 * @param executor executor
+	 * @param <T>      type of a result
+	 * @return future, which fails with the exception of the task, such as an IOException.
+	 */
+	@NotNull
+	static <T> CompletableFuture<T> supply(@NotNull final Task<T> task, @NotNull final Executor executor) {
+		final CompletableFuture<T> future = new CompletableFuture<>();
+		try {
+			executor.execute(() -> {
+				if (future.isDone()) return;
+				try {
+					future.complete(task.run());
+				} catch (Throwable e) {
+					future.completeExceptionally(e);
+				}
+			});
+		} catch (RuntimeException e) {
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
+	private static final class Holder {
+		private static final Executor EXECUTOR = newExecutor();
+
+		@NotNull
+		private static Executor newExecutor() {
+			try {
+				return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+			} catch (ReflectiveOperationException | RuntimeException ignore) {
+			}
+			final AtomicInteger count = new AtomicInteger();
+			return Executors.newCachedThreadPool(runnable -> {
+				final Thread thread = new Thread(runnable, "xelhua-io-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Data formats of cell styles, resolved once when a package is opened.
+ *
+ * @author Elex
+ */
+final class CellFormats {
+	private final short[] indexes;
+	private final String[] formats;
+	private final boolean[] dates;
+
+	private CellFormats(final int size) {
+		this.indexes = new short[size];
+		this.formats = new String[size];
+		this.dates = new boolean[size];
+	}
+
+	/**
+	 * Resolve data formats of all cell styles
+	 *
+	 * @param styles styles, or null if the package has no styles part
+	 * @return formats
+	 */
+	@NotNull
+	static CellFormats of(@Nullable final StylesTable styles) {
+		if (null == styles) {
+			return new CellFormats(0);
+		}
+		final CellFormats formats = new CellFormats(styles.getNumCellStyles());
+		for (int i = 0; i < formats.indexes.length; i++) {
+			final XSSFCellStyle style = styles.getStyleAt(i);
+			if (null == style) continue;
+			formats.indexes[i] = style.getDataFormat();
+			formats.formats[i] = style.getDataFormatString();
+			formats.dates[i] = DateUtil.isADateFormat(formats.indexes[i], formats.formats[i]);
+		}
+		return formats;
+	}
+
+	short getFormatIndex(final int style) {
+		return style >= 0 && style < indexes.length ? indexes[style] : 0;
+	}
+
+	@Nullable
+	String getFormatString(final int style) {
+		return style >= 0 && style < formats.length ? formats[style] : null;
+	}
+
+	boolean isDate(final int style) {
+		return style >= 0 && style < dates.length && dates[style];
+	}
+}
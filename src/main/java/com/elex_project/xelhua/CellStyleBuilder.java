@@ -11,14 +11,30 @@ package com.elex_project.xelhua;
 
 import org.apache.poi.ss.usermodel.*;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * CellStyle builder
+ * <p>
+ * An interning builder creates nothing until {@link #get()},
+ * and returns the same style for builders with the same attributes.
+ * So it can be used in a loop without filling up the style table.
  *
  * @author Elex
  */
 public final class CellStyleBuilder {
+	@Nullable
 	private final CellStyle cellStyle;
+	@Nullable
+	private final Workbook workbook;
+	private final Map<String, Object> attributes = new HashMap<>();
+	private long nanos;
+	private final Map<String, Consumer<CellStyle>> setters = new LinkedHashMap<>();
 
 	/**
 	 * CellStyle builder
@@ -26,7 +42,24 @@ public final class CellStyleBuilder {
 	 * @param workbook workbook
 	 */
 	public CellStyleBuilder(@NotNull final Workbook workbook) {
-		this.cellStyle = workbook.createCellStyle();
+		this(workbook, false);
+	}
+
+	/**
+	 * CellStyle builder
+	 *
+	 * @param workbook workbook
+	 * @param intern   share a style with the same attributes, instead of creating new one
+	 */
+	public CellStyleBuilder(@NotNull final Workbook workbook, final boolean intern) {
+		this.workbook = workbook;
+		if (intern) {
+			this.cellStyle = null;
+		} else {
+			final long start = XlsxMetrics.start();
+			this.cellStyle = workbook.createCellStyle();
+			this.nanos = XlsxMetrics.elapsed(start);
+		}
 	}
 
 	/**
@@ -36,6 +69,7 @@ public final class CellStyleBuilder {
 	 */
 	public CellStyleBuilder(@NotNull final Workbook workbook, final int index) {
 		this.cellStyle = workbook.getCellStyleAt(index);
+		this.workbook = null;
 	}
 
 	/**
@@ -44,6 +78,7 @@ public final class CellStyleBuilder {
 	 */
 	public CellStyleBuilder(@NotNull final CellStyle cellStyle) {
 		this.cellStyle = cellStyle;
+		this.workbook = null;
 	}
 
 	/**
@@ -52,6 +87,19 @@ public final class CellStyleBuilder {
 	 */
 	public CellStyleBuilder(@NotNull final Cell cell) {
 		this.cellStyle = cell.getCellStyle();
+		this.workbook = null;
+	}
+
+	@NotNull
+	private CellStyleBuilder set(@NotNull final String attribute, @NotNull final Object value,
+	                             @NotNull final Consumer<CellStyle> setter) {
+		if (null != cellStyle) {
+			setter.accept(cellStyle);
+		} else {
+			attributes.put(attribute, value);
+			setters.put(attribute, setter);
+		}
+		return this;
 	}
 
 	/**
@@ -63,9 +111,8 @@ public final class CellStyleBuilder {
 	 */
 	@NotNull
 	public CellStyleBuilder background(@NotNull final IndexedColors color, @NotNull final FillPatternType fillPattern) {
-		cellStyle.setFillForegroundColor(color.getIndex());
-		cellStyle.setFillPattern(fillPattern);
-		return this;
+		set("fillForeground", color.getIndex(), s -> s.setFillForegroundColor(color.getIndex()));
+		return set("fillPattern", fillPattern, s -> s.setFillPattern(fillPattern));
 	}
 
 	/**
@@ -81,10 +128,9 @@ public final class CellStyleBuilder {
 	 */
 	@NotNull
 	public CellStyleBuilder background(@NotNull final IndexedColors foregroundColor, @NotNull final IndexedColors backgroundColor, @NotNull final FillPatternType fillPattern) {
-		cellStyle.setFillForegroundColor(foregroundColor.getIndex());
-		cellStyle.setFillBackgroundColor(backgroundColor.getIndex());
-		cellStyle.setFillPattern(fillPattern);
-		return this;
+		set("fillForeground", foregroundColor.getIndex(), s -> s.setFillForegroundColor(foregroundColor.getIndex()));
+		set("fillBackground", backgroundColor.getIndex(), s -> s.setFillBackgroundColor(backgroundColor.getIndex()));
+		return set("fillPattern", fillPattern, s -> s.setFillPattern(fillPattern));
 	}
 
 	/**
@@ -106,8 +152,7 @@ public final class CellStyleBuilder {
 	 */
 	@NotNull
 	public CellStyleBuilder align(@NotNull final VerticalAlignment alignment) {
-		cellStyle.setVerticalAlignment(alignment);
-		return this;
+		return set("verticalAlignment", alignment, s -> s.setVerticalAlignment(alignment));
 	}
 
 	/**
@@ -118,8 +163,7 @@ public final class CellStyleBuilder {
 	 */
 	@NotNull
 	public CellStyleBuilder align(@NotNull final HorizontalAlignment alignment) {
-		cellStyle.setAlignment(alignment);
-		return this;
+		return set("alignment", alignment, s -> s.setAlignment(alignment));
 	}
 
 	/**
@@ -130,8 +174,7 @@ public final class CellStyleBuilder {
 	 */
 	@NotNull
 	public CellStyleBuilder borderTop(@NotNull final BorderStyle borderStyle) {
-		cellStyle.setBorderTop(borderStyle);
-		return this;
+		return set("borderTop", borderStyle, s -> s.setBorderTop(borderStyle));
 	}
 
 	/**
@@ -142,8 +185,7 @@ public final class CellStyleBuilder {
 	 */
 	@NotNull
 	public CellStyleBuilder borderTop(@NotNull final IndexedColors color) {
-		cellStyle.setTopBorderColor(color.getIndex());
-		return this;
+		return set("borderTopColor", color.getIndex(), s -> s.setTopBorderColor(color.getIndex()));
 	}
 
 	/**
@@ -154,8 +196,7 @@ public final class CellStyleBuilder {
 	 */
 	@NotNull
 	public CellStyleBuilder borderLeft(@NotNull final BorderStyle borderStyle) {
-		cellStyle.setBorderLeft(borderStyle);
-		return this;
+		return set("borderLeft", borderStyle, s -> s.setBorderLeft(borderStyle));
 	}
 
 	/**
@@ -166,8 +207,7 @@ public final class CellStyleBuilder {
 	 */
 	@NotNull
 	public CellStyleBuilder borderLeft(@NotNull final IndexedColors color) {
-		cellStyle.setLeftBorderColor(color.getIndex());
-		return this;
+		return set("borderLeftColor", color.getIndex(), s -> s.setLeftBorderColor(color.getIndex()));
 	}
 
 	/**
@@ -178,8 +218,7 @@ public final class CellStyleBuilder {
 	 */
 	@NotNull
 	public CellStyleBuilder borderRight(@NotNull final BorderStyle borderStyle) {
-		cellStyle.setBorderRight(borderStyle);
-		return this;
+		return set("borderRight", borderStyle, s -> s.setBorderRight(borderStyle));
 	}
 
 	/**
@@ -190,8 +229,7 @@ public final class CellStyleBuilder {
 	 */
 	@NotNull
 	public CellStyleBuilder borderRight(@NotNull final IndexedColors color) {
-		cellStyle.setRightBorderColor(color.getIndex());
-		return this;
+		return set("borderRightColor", color.getIndex(), s -> s.setRightBorderColor(color.getIndex()));
 	}
 
 	/**
@@ -202,8 +240,7 @@ public final class CellStyleBuilder {
 	 */
 	@NotNull
 	public CellStyleBuilder borderBottom(@NotNull final BorderStyle borderStyle) {
-		cellStyle.setBorderBottom(borderStyle);
-		return this;
+		return set("borderBottom", borderStyle, s -> s.setBorderBottom(borderStyle));
 	}
 
 	/**
@@ -214,8 +251,7 @@ public final class CellStyleBuilder {
 	 */
 	@NotNull
 	public CellStyleBuilder borderBottom(@NotNull final IndexedColors color) {
-		cellStyle.setBottomBorderColor(color.getIndex());
-		return this;
+		return set("borderBottomColor", color.getIndex(), s -> s.setBottomBorderColor(color.getIndex()));
 	}
 
 	/**
@@ -227,17 +263,27 @@ public final class CellStyleBuilder {
 	 */
 	@NotNull
 	public CellStyleBuilder font(@NotNull final Font font) {
-		cellStyle.setFont(font);
-		return this;
+		return set("font", font.getIndexAsInt(), s -> s.setFont(font));
 	}
 
 	/**
 	 * finish building a cell style
 	 *
-	 * @return cell style
+	 * @return cell style, which may be shared if this builder is interning.
 	 */
 	@NotNull
 	public CellStyle get() {
-		return cellStyle;
+		if (null != cellStyle) {
+			XlsxMetrics.cellStyleBuilt(workbook, nanos);
+			return cellStyle;
+		}
+		final long start = XlsxMetrics.start();
+		final CellStyle shared = StyleRegistry.internCellStyle(workbook, attributes, style -> {
+			for (final Consumer<CellStyle> setter : setters.values()) {
+				setter.accept(style);
+			}
+		});
+		XlsxMetrics.cellStyleBuilt(workbook, XlsxMetrics.elapsed(start));
+		return shared;
 	}
 }
@@ -0,0 +1,124 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.apache.poi.ss.usermodel.Font;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Estimated character widths of a font, in widths of '0' of the default font.
+ * Tables are cached per font, so nothing is measured with AWT.
+ *
+ * @author Elex
+ */
+final class CharWidths {
+	private static final Map<String, CharWidths> CACHE = new ConcurrentHashMap<>();
+
+	private static final String NARROW = " ijl.,:;'|!`";
+	private static final String SEMI_NARROW = "frtI()[]{}/\\-\"";
+	private static final String WIDE = "mw%";
+	private static final String WIDER = "MW@";
+
+	private final float[] ascii = new float[128];
+	private final float normal, wide;
+
+	private CharWidths(final boolean monospace, final float scale) {
+		for (char c = ' '; c < 127; c++) {
+			final float width;
+			if (monospace || Character.isDigit(c)) {
+				width = 1f;
+			} else if (NARROW.indexOf(c) >= 0) {
+				width = 0.45f;
+			} else if (SEMI_NARROW.indexOf(c) >= 0) {
+				width = 0.6f;
+			} else if (WIDE.indexOf(c) >= 0) {
+				width = 1.4f;
+			} else if (WIDER.indexOf(c) >= 0) {
+				width = 1.55f;
+			} else if (Character.isUpperCase(c)) {
+				width = 1.15f;
+			} else if (Character.isLowerCase(c)) {
+				width = 0.9f;
+			} else {
+				width = 1f;
+			}
+			ascii[c] = width * scale;
+		}
+		this.normal = scale;
+		this.wide = 2f * scale;
+	}
+
+	/**
+	 * Width table of a font
+	 *
+	 * @param font        font
+	 * @param defaultFont default font of a workbook
+	 * @return width table
+	 */
+	@NotNull
+	static CharWidths of(@NotNull final Font font, @NotNull final Font defaultFont) {
+		final String key = font.getFontName() + '|' + font.getBold() + '|'
+				+ font.getFontHeight() + '|' + defaultFont.getFontHeight();
+		return CACHE.computeIfAbsent(key, k -> {
+			final String name = String.valueOf(font.getFontName()).toLowerCase();
+			final boolean monospace = name.contains("mono") || name.contains("courier") || name.contains("consolas");
+			float scale = (float) font.getFontHeight() / Math.max(defaultFont.getFontHeight(), 1);
+			if (font.getBold()) {
+				scale *= 1.08f;
+			}
+			return new CharWidths(monospace, scale);
+		});
+	}
+
+	/**
+	 * East asian wide characters, such as hangul, CJK ideographs and full-width forms.
+	 *
+	 * @param c character
+	 * @return true if it's about twice as wide as a digit
+	 */
+	static boolean isWide(final char c) {
+		return (c >= 0x1100 && c <= 0x115F)
+				|| (c >= 0x2E80 && c <= 0xA4CF)
+				|| (c >= 0xAC00 && c <= 0xD7A3)
+				|| (c >= 0xF900 && c <= 0xFAFF)
+				|| (c >= 0xFE30 && c <= 0xFE4F)
+				|| (c >= 0xFF00 && c <= 0xFF60)
+				|| (c >= 0xFFE0 && c <= 0xFFE6);
+	}
+
+	/**
+	 * Estimated width of a text, the widest line for a multi-line text.
+	 *
+	 * @param text text
+	 * @return width in widths of '0' of the default font
+	 */
+	float measure(@NotNull final CharSequence text) {
+		float max = 0, line = 0;
+		for (int i = 0; i < text.length(); i++) {
+			final char c = text.charAt(i);
+			if (c == '\n') {
+				max = Math.max(max, line);
+				line = 0;
+			} else if (c < 128) {
+				line += ascii[c];
+			} else if (Character.isLowSurrogate(c)) {
+				continue; // counted with its high surrogate
+			} else if (Character.isHighSurrogate(c) || isWide(c)) {
+				line += wide;
+			} else {
+				line += normal;
+			}
+		}
+		return Math.max(max, line);
+	}
+}
@@ -0,0 +1,236 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Date1904Support;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Growable primitive buffer of a column, with a null bitmap.
+ * A cell of another type is read as null.
+ *
+ * @author Elex
+ */
+final class ColumnBuffer {
+	/**
+	 * 1970-01-01 as a serial number of the 1900 date system
+	 */
+	private static final long EPOCH = 25569;
+	/**
+	 * 1970-01-01 as a serial number of the 1904 date system
+	 */
+	private static final long EPOCH_1904 = 24107;
+
+	final String name;
+	final ColumnType type;
+	final BitSet nulls = new BitSet();
+	int size;
+
+	private double[] numbers;
+	private long[] days;
+	private boolean[] booleans;
+	private int[] codes;
+	private Map<String, Integer> dictionary;
+	private List<String> values;
+
+	ColumnBuffer(@NotNull final String name, @NotNull final ColumnType type) {
+		this.name = name;
+		this.type = type;
+		final int capacity = 1024;
+		switch (type) {
+			case NUMERIC:
+				numbers = new double[capacity];
+				break;
+			case DATE:
+				days = new long[capacity];
+				break;
+			case BOOLEAN:
+				booleans = new boolean[capacity];
+				break;
+			case STRING:
+				codes = new int[capacity];
+				dictionary = new HashMap<>();
+				values = new ArrayList<>();
+				break;
+		}
+	}
+
+	private void grow() {
+		switch (type) {
+			case NUMERIC:
+				if (size == numbers.length) numbers = Arrays.copyOf(numbers, size * 2);
+				break;
+			case DATE:
+				if (size == days.length) days = Arrays.copyOf(days, size * 2);
+				break;
+			case BOOLEAN:
+				if (size == booleans.length) booleans = Arrays.copyOf(booleans, size * 2);
+				break;
+			case STRING:
+				if (size == codes.length) codes = Arrays.copyOf(codes, size * 2);
+				break;
+		}
+	}
+
+	void appendNull() {
+		grow();
+		if (type == ColumnType.STRING) {
+			codes[size] = -1;
+		}
+		nulls.set(size++);
+	}
+
+	void appendNumber(final double value, final boolean date1904) {
+		if (type == ColumnType.NUMERIC) {
+			grow();
+			numbers[size++] = value;
+		} else if (type == ColumnType.DATE) {
+			grow();
+			days[size++] = epochDay(value, date1904);
+		} else {
+			appendNull();
+		}
+	}
+
+	void appendBoolean(final boolean value) {
+		if (type != ColumnType.BOOLEAN) {
+			appendNull();
+			return;
+		}
+		grow();
+		booleans[size++] = value;
+	}
+
+	void appendString(@NotNull final String value) {
+		if (type != ColumnType.STRING) {
+			appendNull();
+			return;
+		}
+		grow();
+		Integer code = dictionary.get(value);
+		if (null == code) {
+			code = values.size();
+			dictionary.put(value, code);
+			values.add(value);
+		}
+		codes[size++] = code;
+	}
+
+	void append(@Nullable final Cell cell, final boolean date1904) {
+		if (null == cell) {
+			appendNull();
+			return;
+		}
+		final CellType cellType = cell.getCellType() == CellType.FORMULA
+				? cell.getCachedFormulaResultType()
+				: cell.getCellType();
+		switch (cellType) {
+			case NUMERIC:
+				appendNumber(cell.getNumericCellValue(), date1904);
+				break;
+			case BOOLEAN:
+				appendBoolean(cell.getBooleanCellValue());
+				break;
+			case STRING:
+				appendString(cell.getStringCellValue());
+				break;
+			default:
+				appendNull();
+				break;
+		}
+	}
+
+	void append(@NotNull final RowView row, final int colNum) {
+		switch (row.getCellType(colNum)) {
+			case NUMERIC:
+				appendNumber(row.readNumeric(colNum), row.isDate1904());
+				break;
+			case BOOLEAN:
+				appendBoolean(row.readBoolean(colNum));
+				break;
+			case STRING:
+				appendString(row.readString(colNum));
+				break;
+			default:
+				appendNull();
+				break;
+		}
+	}
+
+	/**
+	 * Epoch day of a serial number
+	 *
+	 * @param serial   serial number
+	 * @param date1904 true if it's in the 1904 date system
+	 * @return epoch day
+	 */
+	static long epochDay(final double serial, final boolean date1904) {
+		final long day = (long) Math.floor(serial);
+		if (date1904) {
+			return day - EPOCH_1904;
+		}
+		// serial 60 is 1900-02-29, which doesn't exist
+		return day < 61 ? day - EPOCH + 1 : day - EPOCH;
+	}
+
+	/**
+	 * Is a workbook in the 1904 date system?
+	 *
+	 * @param workbook workbook
+	 * @return true if date serial numbers count from 1904-01-01
+	 */
+	static boolean isDate1904(@NotNull final Workbook workbook) {
+		if (workbook instanceof HSSFWorkbook) {
+			return ((HSSFWorkbook) workbook).getInternalWorkbook().isUsing1904DateWindowing();
+		}
+		if (workbook instanceof SXSSFWorkbook) {
+			return ((SXSSFWorkbook) workbook).getXSSFWorkbook().isDate1904();
+		}
+		return workbook instanceof Date1904Support && ((Date1904Support) workbook).isDate1904();
+	}
+
+	@NotNull
+	double[] numbers() {
+		return Arrays.copyOf(numbers, size);
+	}
+
+	@NotNull
+	long[] days() {
+		return Arrays.copyOf(days, size);
+	}
+
+	@NotNull
+	boolean[] booleans() {
+		return Arrays.copyOf(booleans, size);
+	}
+
+	@NotNull
+	int[] codes() {
+		return Arrays.copyOf(codes, size);
+	}
+
+	@NotNull
+	String[] dictionary() {
+		return values.toArray(new String[0]);
+	}
+}
@@ -0,0 +1,34 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+/**
+ * Type of a column read into a {@link ColumnarTable}
+ *
+ * @author Elex
+ */
+public enum ColumnType {
+	/**
+	 * numbers as {@code double[]}
+	 */
+	NUMERIC,
+	/**
+	 * dates as {@code long[]} epoch days
+	 */
+	DATE,
+	/**
+	 * booleans as {@code boolean[]}
+	 */
+	BOOLEAN,
+	/**
+	 * strings as {@code int[]} codes of a dictionary
+	 */
+	STRING
+}
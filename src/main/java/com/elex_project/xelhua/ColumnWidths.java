@@ -0,0 +1,168 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.apache.poi.ss.usermodel.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Estimated column widths, without AWT font measurement.
+ * Widths are estimated from the formatted text of cells and cached character width tables of their fonts.
+ * <p>
+ * When tracking is enabled with {@link #track(Sheet)}, cells written by {@link RowWriter},
+ * {@link SheetMapper}, {@link Xlsx#writeRows(Sheet, int, Iterable)} and the {@code Xlsx.write} helpers
+ * are observed as they are written, then {@link Xlsx#autoWidthEstimated(Sheet)} only sets the widths.
+ * Values set on cells directly, such as {@link Cell#setCellValue(String)}, are not observed.
+ * Otherwise it reads all rows of a sheet once.
+ *
+ * @author Elex
+ */
+public final class ColumnWidths {
+	private static final WeakIdentityMap<Sheet, ColumnWidths> TRACKED = new WeakIdentityMap<>();
+	private static final int MAX_WIDTH = 255 * 256;
+	private static final float PADDING = 1f;
+
+	private final DataFormatter formatter = new DataFormatter();
+	private float[] widths = new float[16];
+	private int lastCol = -1;
+	private CharWidths[] fonts = new CharWidths[8];
+
+	ColumnWidths() {
+	}
+
+	/**
+	 * Track widths of cells written into a sheet.
+	 * It should be called before any row of a streaming sheet is flushed.
+	 *
+	 * @param sheet sheet
+	 * @return tracker of the sheet
+	 */
+	@NotNull
+	public static ColumnWidths track(@NotNull final Sheet sheet) {
+		return TRACKED.computeIfAbsent(sheet, k -> new ColumnWidths());
+	}
+
+	/**
+	 * Tracker of a sheet
+	 *
+	 * @param sheet sheet
+	 * @return tracker, or null if not tracked
+	 */
+	@Nullable
+	static ColumnWidths of(@NotNull final Sheet sheet) {
+		return TRACKED.get(sheet);
+	}
+
+	/**
+	 * A cell has been written, observe it if its sheet is tracked
+	 *
+	 * @param cell cell
+	 */
+	static void written(@NotNull final Cell cell) {
+		final ColumnWidths widths = of(cell.getSheet());
+		if (null != widths) {
+			widths.observe(cell);
+		}
+	}
+
+	/**
+	 * Observe a cell
+	 *
+	 * @param cell cell
+	 */
+	public void observe(@NotNull final Cell cell) {
+		final String text = textOf(cell);
+		if (text.isEmpty()) return;
+		final int colNum = cell.getColumnIndex();
+		final float width = fontOf(cell).measure(text);
+		if (colNum >= widths.length) {
+			widths = Arrays.copyOf(widths, Math.max(widths.length * 2, colNum + 1));
+		}
+		if (width > widths[colNum]) {
+			widths[colNum] = width;
+		}
+		if (colNum > lastCol) {
+			lastCol = colNum;
+		}
+	}
+
+	/**
+	 * Observe all cells of a row
+	 *
+	 * @param row row
+	 */
+	public void observe(@NotNull final Row row) {
+		for (final Cell cell : row) {
+			observe(cell);
+		}
+	}
+
+	/**
+	 * Set widths of all observed columns
+	 *
+	 * @param sheet sheet
+	 */
+	public void apply(@NotNull final Sheet sheet) {
+		for (int colNum = 0; colNum <= lastCol; colNum++) {
+			if (widths[colNum] <= 0) continue;
+			final int width = (int) ((widths[colNum] + PADDING) * 256);
+			sheet.setColumnWidth(colNum, Math.min(width, MAX_WIDTH));
+		}
+	}
+
+	/**
+	 * Estimated width of a column
+	 *
+	 * @param colNum column number
+	 * @return width in characters, or 0 if nothing is observed
+	 */
+	public float getWidth(final int colNum) {
+		return colNum <= lastCol ? widths[colNum] : 0;
+	}
+
+	@NotNull
+	private CharWidths fontOf(@NotNull final Cell cell) {
+		final int index = cell.getCellStyle().getFontIndexAsInt();
+		if (index >= fonts.length) {
+			fonts = Arrays.copyOf(fonts, Math.max(fonts.length * 2, index + 1));
+		}
+		CharWidths charWidths = fonts[index];
+		if (null == charWidths) {
+			final Workbook workbook = cell.getSheet().getWorkbook();
+			charWidths = CharWidths.of(workbook.getFontAt(index), workbook.getFontAt(0));
+			fonts[index] = charWidths;
+		}
+		return charWidths;
+	}
+
+	@NotNull
+	private String textOf(@NotNull final Cell cell) {
+		final CellType type = cell.getCellType() == CellType.FORMULA
+				? cell.getCachedFormulaResultType()
+				: cell.getCellType();
+		switch (type) {
+			case STRING:
+				return cell.getStringCellValue();
+			case NUMERIC:
+				final CellStyle style = cell.getCellStyle();
+				return formatter.formatRawCellContents(cell.getNumericCellValue(),
+						style.getDataFormat(), style.getDataFormatString());
+			case BOOLEAN:
+				return cell.getBooleanCellValue() ? "TRUE" : "FALSE";
+			case ERROR:
+				return "#N/A";
+			default:
+				return "";
+		}
+	}
+}
@@ -0,0 +1,349 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellReference;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Reads columns of a sheet into a {@link ColumnarTable}.
+ * <pre>{@code
+ * ColumnarTable table = new ColumnarReader()
+ *         .string("Name")
+ *         .numeric("Price")
+ *         .date("Date")
+ *         .read(sheet);
+ * double[] prices = table.getNumbers(1);
+ * }</pre>
+ * Named columns are looked up in a header row, which is the first row of a range if not set.
+ *
+ * @author Elex
+ */
+public final class ColumnarReader {
+	private final List<Spec> specs = new ArrayList<>();
+	private int headerRow = -1;
+	private int firstRow = 0;
+	private int lastRow = Integer.MAX_VALUE;
+
+	/**
+	 * Columnar reader
+	 */
+	public ColumnarReader() {
+	}
+
+	@NotNull
+	private ColumnarReader add(@Nullable final String name, final int colNum, @NotNull final ColumnType type) {
+		specs.add(new Spec(name, colNum, type));
+		return this;
+	}
+
+	/**
+	 * Add a column
+	 *
+	 * @param name column name in a header row
+	 * @param type type
+	 * @return reader
+	 */
+	@NotNull
+	public ColumnarReader column(@NotNull final String name, @NotNull final ColumnType type) {
+		return add(name, -1, type);
+	}
+
+	/**
+	 * Add a column
+	 *
+	 * @param colNum column number
+	 * @param type   type
+	 * @return reader
+	 */
+	@NotNull
+	public ColumnarReader column(final int colNum, @NotNull final ColumnType type) {
+		return add(null, colNum, type);
+	}
+
+	/**
+	 * Add columns of a rectangular range
+	 *
+	 * @param firstCol first column number (inclusive)
+	 * @param lastCol  last column number (inclusive)
+	 * @param type     type
+	 * @return reader
+	 */
+	@NotNull
+	public ColumnarReader columns(final int firstCol, final int lastCol, @NotNull final ColumnType type) {
+		for (int colNum = firstCol; colNum <= lastCol; colNum++) {
+			add(null, colNum, type);
+		}
+		return this;
+	}
+
+	/**
+	 * Add a numeric column
+	 *
+	 * @param name column name in a header row
+	 * @return reader
+	 */
+	@NotNull
+	public ColumnarReader numeric(@NotNull final String name) {
+		return column(name, ColumnType.NUMERIC);
+	}
+
+	/**
+	 * Add a date column
+	 *
+	 * @param name column name in a header row
+	 * @return reader
+	 */
+	@NotNull
+	public ColumnarReader date(@NotNull final String name) {
+		return column(name, ColumnType.DATE);
+	}
+
+	/**
+	 * Add a boolean column
+	 *
+	 * @param name column name in a header row
+	 * @return reader
+	 */
+	@NotNull
+	public ColumnarReader bool(@NotNull final String name) {
+		return column(name, ColumnType.BOOLEAN);
+	}
+
+	/**
+	 * Add a string column
+	 *
+	 * @param name column name in a header row
+	 * @return reader
+	 */
+	@NotNull
+	public ColumnarReader string(@NotNull final String name) {
+		return column(name, ColumnType.STRING);
+	}
+
+	/**
+	 * Set a header row
+	 *
+	 * @param rowNum row number of a header row, rows are read below it.
+	 * @return reader
+	 */
+	@NotNull
+	public ColumnarReader header(final int rowNum) {
+		this.headerRow = rowNum;
+		return this;
+	}
+
+	/**
+	 * Set a range of rows
+	 *
+	 * @param firstRow first row number (inclusive)
+	 * @param lastRow  last row number (inclusive)
+	 * @return reader
+	 */
+	@NotNull
+	public ColumnarReader rows(final int firstRow, final int lastRow) {
+		this.firstRow = firstRow;
+		this.lastRow = lastRow;
+		return this;
+	}
+
+	private boolean isNamed() {
+		for (final Spec spec : specs) {
+			if (null != spec.name) return true;
+		}
+		return false;
+	}
+
+	private int headerRow() {
+		return headerRow >= 0 ? headerRow : isNamed() ? firstRow : -1;
+	}
+
+	private int dataRow() {
+		final int header = headerRow();
+		return header >= 0 ? Math.max(header + 1, firstRow) : firstRow;
+	}
+
+	@NotNull
+	private ColumnBuffer[] newBuffers() {
+		final ColumnBuffer[] buffers = new ColumnBuffer[specs.size()];
+		for (int i = 0; i < buffers.length; i++) {
+			final Spec spec = specs.get(i);
+			buffers[i] = new ColumnBuffer(null != spec.name
+					? spec.name
+					: CellReference.convertNumToColString(spec.colNum), spec.type);
+		}
+		return buffers;
+	}
+
+	@NotNull
+	private int[] columnsOf(@Nullable final HeaderIndex headerIndex) throws IllegalStateException {
+		final int[] columns = new int[specs.size()];
+		for (int i = 0; i < columns.length; i++) {
+			final Spec spec = specs.get(i);
+			if (null == spec.name) {
+				columns[i] = spec.colNum;
+			} else {
+				columns[i] = null == headerIndex ? -1 : headerIndex.getColumn(spec.name);
+				if (columns[i] < 0) {
+					throw new IllegalStateException("Couldn't find a cell with that name in header row.");
+				}
+			}
+		}
+		return columns;
+	}
+
+	/**
+	 * Read columns of a sheet
+	 *
+	 * @param sheet sheet
+	 * @return table
+	 * @throws IllegalStateException Couldn't find a named column in header row.
+	 */
+	@NotNull
+	public ColumnarTable read(@NotNull final Sheet sheet) throws IllegalStateException {
+		final int header = headerRow();
+		final Row headerRow = header >= 0 ? sheet.getRow(header) : null;
+		final int[] columns = columnsOf(null == headerRow ? null : new HeaderIndex(headerRow));
+		final ColumnBuffer[] buffers = newBuffers();
+		final boolean date1904 = ColumnBuffer.isDate1904(sheet.getWorkbook());
+		final int last = Math.min(lastRow, sheet.getLastRowNum());
+		for (int rowNum = dataRow(); rowNum <= last; rowNum++) {
+			final Row row = sheet.getRow(rowNum);
+			for (int i = 0; i < buffers.length; i++) {
+				buffers[i].append(null == row ? null : row.getCell(columns[i]), date1904);
+			}
+		}
+		return new ColumnarTable(buffers);
+	}
+
+	/**
+	 * Read columns of a sheet with a streaming reader
+	 *
+	 * @param reader reader
+	 * @param sheet  name of a sheet
+	 * @return table
+	 * @throws IOException           if it can not be read
+	 * @throws IllegalStateException Couldn't find a named column in header row, or the sheet.
+	 */
+	@NotNull
+	public ColumnarTable read(@NotNull final XlsxReader reader, @NotNull final String sheet)
+			throws IOException, IllegalStateException {
+		final Handler handler = new Handler();
+		reader.read(sheet, handler);
+		return handler.getTable();
+	}
+
+	/**
+	 * Read columns of all sheets in parallel, with a streaming reader
+	 *
+	 * @param reader reader
+	 * @return tables by sheet names, in order of sheets
+	 * @throws IOException           if it can not be read
+	 * @throws IllegalStateException Couldn't find a named column in header row.
+	 * @see XlsxReader#readAll(Function)
+	 */
+	@NotNull
+	public Map<String, ColumnarTable> readAll(@NotNull final XlsxReader reader)
+			throws IOException, IllegalStateException {
+		final Map<String, Handler> handlers = new LinkedHashMap<>();
+		reader.readAll(name -> {
+			final Handler handler = new Handler();
+			handlers.put(name, handler);
+			return handler;
+		});
+		final Map<String, ColumnarTable> tables = new LinkedHashMap<>();
+		for (final Map.Entry<String, Handler> entry : handlers.entrySet()) {
+			tables.put(entry.getKey(), entry.getValue().getTable());
+		}
+		return tables;
+	}
+
+	/**
+	 * Row handler which fills columns, for streaming readers
+	 *
+	 * @return handler, call {@link Handler#getTable()} after reading
+	 */
+	@NotNull
+	public Handler newRowHandler() {
+		return new Handler();
+	}
+
+	/**
+	 * Row handler which fills columns
+	 */
+	public final class Handler implements RowHandler {
+		private final ColumnBuffer[] buffers = newBuffers();
+		private final int header = headerRow();
+		private final int first = dataRow();
+		private int[] columns;
+		private int nextRow = first;
+
+		private Handler() {
+			if (header < 0) {
+				columns = columnsOf(null);
+			}
+		}
+
+		@Override
+		public void handle(@NotNull final RowView row) {
+			final int rowNum = row.getRowNum();
+			if (rowNum == header) {
+				columns = columnsOf(new HeaderIndex(row));
+				return;
+			}
+			if (rowNum < first || rowNum > lastRow) return;
+			if (null == columns) {
+				columns = columnsOf(null); // no header row, named columns are not found.
+			}
+			for (; nextRow < rowNum; nextRow++) { // missing rows
+				for (final ColumnBuffer buffer : buffers) {
+					buffer.appendNull();
+				}
+			}
+			for (int i = 0; i < buffers.length; i++) {
+				buffers[i].append(row, columns[i]);
+			}
+			nextRow = rowNum + 1;
+		}
+
+		/**
+		 * Table read so far
+		 *
+		 * @return table
+		 */
+		@NotNull
+		public ColumnarTable getTable() {
+			return new ColumnarTable(buffers);
+		}
+	}
+
+	private static final class Spec {
+		@Nullable
+		private final String name;
+		private final int colNum;
+		private final ColumnType type;
+
+		private Spec(@Nullable final String name, final int colNum, @NotNull final ColumnType type) {
+			this.name = name;
+			this.colNum = colNum;
+			this.type = type;
+		}
+	}
+}
@@ -0,0 +1,222 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.LocalDate;
+import java.util.BitSet;
+
+/**
+ * Columns of a range read into primitive arrays.
+ * Each column has a null bitmap, and strings are dictionary encoded.
+ *
+ * @author Elex
+ * @see ColumnarReader
+ */
+public final class ColumnarTable {
+	private final int rowCount;
+	private final String[] names;
+	private final ColumnType[] types;
+	private final BitSet[] nulls;
+	private final Object[] data;
+	private final String[][] dictionaries;
+
+	ColumnarTable(@NotNull final ColumnBuffer[] buffers) {
+		final int columns = buffers.length;
+		this.rowCount = columns == 0 ? 0 : buffers[0].size;
+		this.names = new String[columns];
+		this.types = new ColumnType[columns];
+		this.nulls = new BitSet[columns];
+		this.data = new Object[columns];
+		this.dictionaries = new String[columns][];
+		for (int i = 0; i < columns; i++) {
+			final ColumnBuffer buffer = buffers[i];
+			names[i] = buffer.name;
+			types[i] = buffer.type;
+			nulls[i] = buffer.nulls;
+			switch (buffer.type) {
+				case NUMERIC:
+					data[i] = buffer.numbers();
+					break;
+				case DATE:
+					data[i] = buffer.days();
+					break;
+				case BOOLEAN:
+					data[i] = buffer.booleans();
+					break;
+				case STRING:
+					data[i] = buffer.codes();
+					dictionaries[i] = buffer.dictionary();
+					break;
+			}
+		}
+	}
+
+	/**
+	 * Number of rows
+	 *
+	 * @return rows
+	 */
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * Number of columns
+	 *
+	 * @return columns
+	 */
+	public int getColumnCount() {
+		return names.length;
+	}
+
+	/**
+	 * Column name
+	 *
+	 * @param col column of this table
+	 * @return header name, or a column letter
+	 */
+	@NotNull
+	public String getName(final int col) {
+		return names[col];
+	}
+
+	/**
+	 * Column of a name
+	 *
+	 * @param name header name, or a column letter
+	 * @return column of this table, or -1
+	 */
+	public int getColumn(@NotNull final String name) {
+		for (int i = 0; i < names.length; i++) {
+			if (names[i].equals(name)) return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Column type
+	 *
+	 * @param col column of this table
+	 * @return type
+	 */
+	@NotNull
+	public ColumnType getType(final int col) {
+		return types[col];
+	}
+
+	/**
+	 * Null bitmap of a column, a bit is set for a missing or mismatched cell.
+	 *
+	 * @param col column of this table
+	 * @return null bitmap, don't modify.
+	 */
+	@NotNull
+	public BitSet getNulls(final int col) {
+		return nulls[col];
+	}
+
+	/**
+	 * Is a value null?
+	 *
+	 * @param col column of this table
+	 * @param row row of this table
+	 * @return true if null
+	 */
+	public boolean isNull(final int col, final int row) {
+		return nulls[col].get(row);
+	}
+
+	private Object data(final int col, @NotNull final ColumnType type) throws IllegalStateException {
+		if (types[col] != type) {
+			throw new IllegalStateException("Column " + col + " is not a " + type + " column.");
+		}
+		return data[col];
+	}
+
+	/**
+	 * Numbers of a numeric column, 0 for null.
+	 *
+	 * @param col column of this table
+	 * @return numbers, don't modify.
+	 * @throws IllegalStateException if it's not a numeric column
+	 */
+	@NotNull
+	public double[] getNumbers(final int col) throws IllegalStateException {
+		return (double[]) data(col, ColumnType.NUMERIC);
+	}
+
+	/**
+	 * Epoch days of a date column, 0 for null.
+	 *
+	 * @param col column of this table
+	 * @return epoch days, don't modify.
+	 * @throws IllegalStateException if it's not a date column
+	 * @see LocalDate#ofEpochDay(long)
+	 */
+	@NotNull
+	public long[] getEpochDays(final int col) throws IllegalStateException {
+		return (long[]) data(col, ColumnType.DATE);
+	}
+
+	/**
+	 * Booleans of a boolean column, false for null.
+	 *
+	 * @param col column of this table
+	 * @return booleans, don't modify.
+	 * @throws IllegalStateException if it's not a boolean column
+	 */
+	@NotNull
+	public boolean[] getBooleans(final int col) throws IllegalStateException {
+		return (boolean[]) data(col, ColumnType.BOOLEAN);
+	}
+
+	/**
+	 * Dictionary codes of a string column, -1 for null.
+	 *
+	 * @param col column of this table
+	 * @return codes, don't modify.
+	 * @throws IllegalStateException if it's not a string column
+	 * @see #getDictionary(int)
+	 */
+	@NotNull
+	public int[] getCodes(final int col) throws IllegalStateException {
+		return (int[]) data(col, ColumnType.STRING);
+	}
+
+	/**
+	 * Dictionary of a string column
+	 *
+	 * @param col column of this table
+	 * @return distinct strings, indexed by codes. don't modify.
+	 * @throws IllegalStateException if it's not a string column
+	 */
+	@NotNull
+	public String[] getDictionary(final int col) throws IllegalStateException {
+		data(col, ColumnType.STRING);
+		return dictionaries[col];
+	}
+
+	/**
+	 * A string of a string column
+	 *
+	 * @param col column of this table
+	 * @param row row of this table
+	 * @return string, or null
+	 * @throws IllegalStateException if it's not a string column
+	 */
+	@Nullable
+	public String getString(final int col, final int row) throws IllegalStateException {
+		final int code = getCodes(col)[row];
+		return code < 0 ? null : dictionaries[col][code];
+	}
+}
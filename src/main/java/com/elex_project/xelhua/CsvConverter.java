@@ -0,0 +1,257 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParsePosition;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalQuery;
+import java.util.List;
+
+/**
+ * Streaming conversion between csv (or tsv) and workbooks.
+ * A sheet of xlsx or xls is read row by row with {@link XlsxReader} or {@link XlsReader}
+ * and written as csv, and csv is written into a streaming workbook,
+ * so neither side is held in memory.
+ * <pre>{@code
+ * CsvConverter.toCsv(new File("data.xlsx"), "Sheet1", Paths.get("data.csv"), CsvOptions.csv());
+ * CsvConverter.fromCsv(Paths.get("data.csv"), new File("data.xlsx"), "Sheet1", CsvOptions.csv());
+ * }</pre>
+ *
+ * @author Elex
+ */
+public final class CsvConverter {
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private CsvConverter() {
+	}
+
+	/**
+	 * Convert a sheet into a csv file
+	 *
+	 * @param source    a file with a extension .xls or .xlsx
+	 * @param sheetName name of a sheet
+	 * @param target    csv file
+	 * @param options   options
+	 * @throws IOException           if it can not be read or written
+	 * @throws IllegalStateException Couldn't find a sheet with that name.
+	 */
+	public static void toCsv(@NotNull final File source, @NotNull final String sheetName,
+	                         @NotNull final Path target, @NotNull final CsvOptions options)
+			throws IOException, IllegalStateException {
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(target),
+				options.getCharset()), BUFFER_SIZE)) {
+			toCsv(source, sheetName, writer, options);
+		}
+	}
+
+	/**
+	 * Convert a sheet into csv
+	 *
+	 * @param source    a file with a extension .xls or .xlsx
+	 * @param sheetName name of a sheet
+	 * @param writer    writer, which is flushed but not closed
+	 * @param options   options
+	 * @throws IOException           if it can not be read or written
+	 * @throws IllegalStateException Couldn't find a sheet with that name.
+	 */
+	public static void toCsv(@NotNull final File source, @NotNull final String sheetName,
+	                         @NotNull final Writer writer, @NotNull final CsvOptions options)
+			throws IOException, IllegalStateException {
+		final CsvWriter csv = new CsvWriter(writer, options);
+		try {
+			if (source.getName().endsWith("xls")) {
+				try (XlsReader reader = XlsReader.open(source)) {
+					reader.read(sheetName, csv);
+				}
+			} else {
+				try (XlsxReader reader = XlsxReader.open(source)) {
+					reader.read(sheetName, csv);
+				}
+			}
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		csv.flush();
+	}
+
+	/**
+	 * Convert a csv file into a xlsx file, with a streaming workbook
+	 *
+	 * @param source    csv file
+	 * @param target    xlsx file
+	 * @param sheetName name of a sheet
+	 * @param options   options
+	 * @return number of rows
+	 * @throws IOException if it can not be read or written
+	 */
+	public static int fromCsv(@NotNull final Path source, @NotNull final File target,
+	                          @NotNull final String sheetName, @NotNull final CsvOptions options)
+			throws IOException {
+		final SXSSFWorkbook workbook = Xlsx.createStreamingWorkbook();
+		try {
+			final int rows;
+			try (Reader reader = Files.newBufferedReader(source, options.getCharset())) {
+				rows = fromCsv(reader, Xlsx.getSheet(workbook, sheetName), options);
+			}
+			Xlsx.writeOut(workbook, target);
+			return rows;
+		} finally {
+			Xlsx.close(workbook);
+		}
+	}
+
+	/**
+	 * Write csv records into a sheet, from the first row
+	 *
+	 * @param reader  reader, which is not closed
+	 * @param sheet   sheet, may be a streaming one
+	 * @param options options
+	 * @return number of rows
+	 * @throws IOException if it can not be read
+	 */
+	public static int fromCsv(@NotNull final Reader reader, @NotNull final Sheet sheet,
+	                          @NotNull final CsvOptions options) throws IOException {
+		final long start = XlsxMetrics.start();
+		final CsvParser parser = new CsvParser(reader, options);
+		final Values values = options.isInferTypes() ? new Values(options) : null;
+		final Workbook workbook = sheet.getWorkbook();
+		final boolean inline = InlineStrings.isEnabled(workbook);
+		int rowNum = 0;
+		long cells = 0;
+		List<String> fields;
+		while (null != (fields = parser.next())) {
+			if (rowNum == 0 && !fields.isEmpty() && fields.get(0).startsWith("\uFEFF")) {
+				fields.set(0, fields.get(0).substring(1));
+			}
+			final Row row = sheet.createRow(rowNum++);
+			for (int colNum = 0; colNum < fields.size(); colNum++) {
+				final String field = fields.get(colNum);
+				if (field.isEmpty()) continue;
+				cells++;
+				if (null == values) {
+					writeString(row, colNum, field, inline);
+				} else {
+					values.write(row, colNum, field, inline);
+				}
+			}
+		}
+		Formulas.changed(workbook);
+		XlsxMetrics.cellsWritten(sheet, start, rowNum, cells);
+		return rowNum;
+	}
+
+	private static void writeString(@NotNull final Row row, final int colNum, @NotNull final String value,
+	                                final boolean inline) {
+		if (inline) {
+			InlineStrings.write(row.createCell(colNum), value);
+		} else {
+			row.createCell(colNum).setCellValue(value);
+		}
+	}
+
+	/**
+	 * Infers types of csv fields
+	 */
+	private static final class Values {
+		private final DateTimeFormatter dateFormatter;
+		private final DateTimeFormatter dateTimeFormatter;
+		private final String datePattern;
+		private final String dateTimePattern;
+		private final ParsePosition position = new ParsePosition(0);
+
+		private Values(@NotNull final CsvOptions options) {
+			this.datePattern = options.getDatePattern();
+			this.dateTimePattern = options.getDateTimePattern();
+			this.dateFormatter = DateTimeFormatter.ofPattern(datePattern);
+			this.dateTimeFormatter = DateTimeFormatter.ofPattern(dateTimePattern);
+		}
+
+		private void write(@NotNull final Row row, final int colNum, @NotNull final String value,
+		                   final boolean inline) {
+			if (isNumber(value)) {
+				try {
+					row.createCell(colNum).setCellValue(Double.parseDouble(value));
+					return;
+				} catch (NumberFormatException ignore) {
+				}
+			}
+			if ("TRUE".equalsIgnoreCase(value) || "FALSE".equalsIgnoreCase(value)) {
+				row.createCell(colNum).setCellValue(Boolean.parseBoolean(value));
+				return;
+			}
+			final Workbook workbook = row.getSheet().getWorkbook();
+			final LocalDate date = parse(value, dateFormatter, LocalDate::from);
+			if (null != date) {
+				final Cell cell = row.createCell(colNum);
+				cell.setCellStyle(StyleRegistry.getCellStyle(workbook, cell.getCellStyle(), datePattern));
+				cell.setCellValue(date);
+				return;
+			}
+			final LocalDateTime dateTime = parse(value, dateTimeFormatter, LocalDateTime::from);
+			if (null != dateTime) {
+				final Cell cell = row.createCell(colNum);
+				cell.setCellStyle(StyleRegistry.getCellStyle(workbook, cell.getCellStyle(), dateTimePattern));
+				cell.setCellValue(dateTime);
+				return;
+			}
+			writeString(row, colNum, value, inline);
+		}
+
+		@Nullable
+		private <T> T parse(@NotNull final String value, @NotNull final DateTimeFormatter formatter,
+		                    @NotNull final TemporalQuery<T> query) {
+			position.setIndex(0);
+			position.setErrorIndex(-1);
+			final TemporalAccessor parsed = formatter.parseUnresolved(value, position);
+			if (null == parsed || position.getErrorIndex() >= 0 || position.getIndex() != value.length()) {
+				return null;
+			}
+			try {
+				return formatter.parse(value, query);
+			} catch (DateTimeParseException e) {
+				return null;
+			}
+		}
+
+		/**
+		 * Looks like a decimal number? leading zeros such as a zip code are kept as strings.
+		 */
+		private static boolean isNumber(@NotNull final String value) {
+			int i = value.charAt(0) == '-' || value.charAt(0) == '+' ? 1 : 0;
+			if (i == value.length()) return false;
+			if (value.charAt(i) == '0' && i + 1 < value.length() && value.charAt(i + 1) != '.') return false;
+			boolean digits = false;
+			for (; i < value.length(); i++) {
+				final char c = value.charAt(i);
+				if (c >= '0' && c <= '9') {
+					digits = true;
+				} else if (c != '.' && c != 'e' && c != 'E' && c != '-' && c != '+') {
+					return false;
+				}
+			}
+			return digits;
+		}
+	}
+}
@@ -0,0 +1,238 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Options of csv and tsv conversion.
+ * <pre>{@code
+ * CsvConverter.toCsv(file, "Sheet1", target, CsvOptions.tsv().datePattern("yyyy/MM/dd"));
+ * }</pre>
+ *
+ * @author Elex
+ * @see CsvConverter
+ */
+public final class CsvOptions {
+	private char delimiter = ',';
+	private char quote = '"';
+	private String lineSeparator = "\r\n";
+	private Charset charset = StandardCharsets.UTF_8;
+	private String datePattern = "yyyy-MM-dd";
+	private String dateTimePattern = "yyyy-MM-dd HH:mm:ss";
+	private String numberPattern = null;
+	private boolean inferTypes = true;
+
+	/**
+	 * Options of comma separated values, in UTF-8 with CRLF.
+	 */
+	public CsvOptions() {
+	}
+
+	/**
+	 * Options of comma separated values
+	 *
+	 * @return options
+	 */
+	@NotNull
+	public static CsvOptions csv() {
+		return new CsvOptions();
+	}
+
+	/**
+	 * Options of tab separated values
+	 *
+	 * @return options
+	 */
+	@NotNull
+	public static CsvOptions tsv() {
+		return new CsvOptions().delimiter('\t');
+	}
+
+	/**
+	 * Set a delimiter of fields
+	 *
+	 * @param delimiter delimiter
+	 * @return options
+	 */
+	@NotNull
+	public CsvOptions delimiter(final char delimiter) {
+		this.delimiter = delimiter;
+		return this;
+	}
+
+	/**
+	 * Set a quote character
+	 *
+	 * @param quote quote
+	 * @return options
+	 */
+	@NotNull
+	public CsvOptions quote(final char quote) {
+		this.quote = quote;
+		return this;
+	}
+
+	/**
+	 * Set a line separator of written records
+	 *
+	 * @param lineSeparator line separator
+	 * @return options
+	 */
+	@NotNull
+	public CsvOptions lineSeparator(@NotNull final String lineSeparator) {
+		this.lineSeparator = lineSeparator;
+		return this;
+	}
+
+	/**
+	 * Set a charset
+	 *
+	 * @param charset charset
+	 * @return options
+	 */
+	@NotNull
+	public CsvOptions charset(@NotNull final Charset charset) {
+		this.charset = charset;
+		return this;
+	}
+
+	/**
+	 * Set a pattern of dates, which is used to write and parse dates.
+	 *
+	 * @param datePattern pattern of {@link java.time.format.DateTimeFormatter}
+	 * @return options
+	 */
+	@NotNull
+	public CsvOptions datePattern(@NotNull final String datePattern) {
+		this.datePattern = datePattern;
+		return this;
+	}
+
+	/**
+	 * Set a pattern of date times, which is used to write and parse date times.
+	 *
+	 * @param dateTimePattern pattern of {@link java.time.format.DateTimeFormatter}
+	 * @return options
+	 */
+	@NotNull
+	public CsvOptions dateTimePattern(@NotNull final String dateTimePattern) {
+		this.dateTimePattern = dateTimePattern;
+		return this;
+	}
+
+	/**
+	 * Set a pattern of written numbers
+	 *
+	 * @param numberPattern pattern of {@link java.text.DecimalFormat},
+	 *                      or null for plain digits without trailing zeros.
+	 * @return options
+	 */
+	@NotNull
+	public CsvOptions numberPattern(@Nullable final String numberPattern) {
+		this.numberPattern = numberPattern;
+		return this;
+	}
+
+	/**
+	 * Infer types of imported values?
+	 * If true, numbers, booleans, dates and date times are written as typed cells,
+	 * otherwise every value is written as a string.
+	 *
+	 * @param inferTypes infer types?
+	 * @return options
+	 */
+	@NotNull
+	public CsvOptions inferTypes(final boolean inferTypes) {
+		this.inferTypes = inferTypes;
+		return this;
+	}
+
+	/**
+	 * Delimiter of fields
+	 *
+	 * @return delimiter
+	 */
+	public char getDelimiter() {
+		return delimiter;
+	}
+
+	/**
+	 * Quote character
+	 *
+	 * @return quote
+	 */
+	public char getQuote() {
+		return quote;
+	}
+
+	/**
+	 * Line separator
+	 *
+	 * @return line separator
+	 */
+	@NotNull
+	public String getLineSeparator() {
+		return lineSeparator;
+	}
+
+	/**
+	 * Charset
+	 *
+	 * @return charset
+	 */
+	@NotNull
+	public Charset getCharset() {
+		return charset;
+	}
+
+	/**
+	 * Pattern of dates
+	 *
+	 * @return pattern
+	 */
+	@NotNull
+	public String getDatePattern() {
+		return datePattern;
+	}
+
+	/**
+	 * Pattern of date times
+	 *
+	 * @return pattern
+	 */
+	@NotNull
+	public String getDateTimePattern() {
+		return dateTimePattern;
+	}
+
+	/**
+	 * Pattern of numbers
+	 *
+	 * @return pattern, or null for plain digits
+	 */
+	@Nullable
+	public String getNumberPattern() {
+		return numberPattern;
+	}
+
+	/**
+	 * Infer types of imported values?
+	 *
+	 * @return true if inferred
+	 */
+	public boolean isInferTypes() {
+		return inferTypes;
+	}
+}
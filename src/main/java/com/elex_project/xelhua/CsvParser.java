@@ -0,0 +1,105 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads csv records one by one.
+ * Quoted fields may have delimiters, doubled quotes and line breaks.
+ * Records end with LF, CRLF or CR.
+ *
+ * @author Elex
+ */
+final class CsvParser {
+	private final Reader reader;
+	private final char delimiter;
+	private final char quote;
+	private final char[] buffer = new char[64 * 1024];
+	private int position, limit;
+	private final StringBuilder field = new StringBuilder();
+	private final List<String> fields = new ArrayList<>();
+
+	CsvParser(@NotNull final Reader reader, @NotNull final CsvOptions options) {
+		this.reader = reader;
+		this.delimiter = options.getDelimiter();
+		this.quote = options.getQuote();
+	}
+
+	/**
+	 * Read the next record
+	 *
+	 * @return fields of the record, which is reused for the next record, or null at the end.
+	 * @throws IOException if it can not be read
+	 */
+	List<String> next() throws IOException {
+		fields.clear();
+		field.setLength(0);
+		int c = read();
+		if (c < 0) return null;
+		boolean quoted = false;
+		while (true) {
+			if (quoted) {
+				if (c < 0) {
+					throw new IOException("Unexpected end of a quoted field.");
+				}
+				if (c == quote) {
+					final int next = read();
+					if (next == quote) {
+						field.append(quote);
+					} else {
+						quoted = false;
+						c = next;
+						continue;
+					}
+				} else {
+					field.append((char) c);
+				}
+			} else if (c < 0 || c == '\n' || c == '\r') {
+				if (c == '\r' && peek() == '\n') {
+					read();
+				}
+				fields.add(field.toString());
+				return fields;
+			} else if (c == delimiter) {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else if (c == quote && field.length() == 0) {
+				quoted = true;
+			} else {
+				field.append((char) c);
+			}
+			c = read();
+		}
+	}
+
+	private int read() throws IOException {
+		if (position == limit && !fill()) return -1;
+		return buffer[position++];
+	}
+
+	private int peek() throws IOException {
+		if (position == limit && !fill()) return -1;
+		return buffer[position];
+	}
+
+	private boolean fill() throws IOException {
+		final int read = reader.read(buffer);
+		if (read <= 0) return false;
+		position = 0;
+		limit = read;
+		return true;
+	}
+}
@@ -0,0 +1,177 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes rows of a streaming reader as csv records.
+ * Missing rows are written as empty records, so that records keep positions of rows.
+ * <pre>{@code
+ * try (CsvWriter csv = new CsvWriter(writer, CsvOptions.csv())) {
+ *     reader.read("Sheet1", csv);
+ * }
+ * }</pre>
+ *
+ * @author Elex
+ * @see CsvConverter
+ */
+public final class CsvWriter implements RowHandler, Flushable, Closeable {
+	private final Writer writer;
+	private final char delimiter;
+	private final char quote;
+	private final String lineSeparator;
+	private final DateTimeFormatter dateFormatter;
+	private final DateTimeFormatter dateTimeFormatter;
+	@Nullable
+	private final DecimalFormat numberFormat;
+	private int nextRowNum = 0;
+
+	/**
+	 * Csv writer
+	 *
+	 * @param writer  writer, which is buffered by caller
+	 * @param options options
+	 */
+	public CsvWriter(@NotNull final Writer writer, @NotNull final CsvOptions options) {
+		this.writer = writer;
+		this.delimiter = options.getDelimiter();
+		this.quote = options.getQuote();
+		this.lineSeparator = options.getLineSeparator();
+		this.dateFormatter = DateTimeFormatter.ofPattern(options.getDatePattern());
+		this.dateTimeFormatter = DateTimeFormatter.ofPattern(options.getDateTimePattern());
+		this.numberFormat = null == options.getNumberPattern() ? null : new DecimalFormat(options.getNumberPattern());
+	}
+
+	/**
+	 * Write a row as a record
+	 *
+	 * @param row row
+	 * @throws UncheckedIOException if it can not be written
+	 */
+	@Override
+	public void handle(@NotNull final RowView row) throws UncheckedIOException {
+		try {
+			while (nextRowNum < row.getRowNum()) {
+				writer.write(lineSeparator);
+				nextRowNum++;
+			}
+			for (int colNum = 0; colNum < row.getLastCellNum(); colNum++) {
+				if (colNum > 0) {
+					writer.write(delimiter);
+				}
+				writeField(textOf(row, colNum));
+			}
+			writer.write(lineSeparator);
+			nextRowNum = row.getRowNum() + 1;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Write a record of values
+	 *
+	 * @param values values, null for an empty field
+	 * @throws IOException if it can not be written
+	 */
+	public void writeRecord(@NotNull final String... values) throws IOException {
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0) {
+				writer.write(delimiter);
+			}
+			if (null != values[i]) {
+				writeField(values[i]);
+			}
+		}
+		writer.write(lineSeparator);
+		nextRowNum++;
+	}
+
+	@NotNull
+	private String textOf(@NotNull final RowView row, final int colNum) {
+		switch (row.getCellType(colNum)) {
+			case NUMERIC:
+				if (row.isDateFormatted(colNum)) {
+					final LocalDateTime dateTime = row.readLocalDateTime(colNum);
+					return dateTime.toLocalTime().toSecondOfDay() == 0
+							? dateFormatter.format(dateTime) : dateTimeFormatter.format(dateTime);
+				}
+				return formatNumber(row.readNumeric(colNum));
+			case BOOLEAN:
+				return row.readBoolean(colNum) ? "TRUE" : "FALSE";
+			case STRING:
+			case ERROR:
+				return row.readString(colNum);
+			default:
+				return "";
+		}
+	}
+
+	@NotNull
+	private String formatNumber(final double value) {
+		if (null != numberFormat) {
+			return numberFormat.format(value);
+		}
+		if (value == (long) value) {
+			return Long.toString((long) value);
+		}
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			return Double.toString(value);
+		}
+		return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+	}
+
+	private void writeField(@NotNull final String value) throws IOException {
+		boolean quoted = false;
+		for (int i = 0; i < value.length(); i++) {
+			final char c = value.charAt(i);
+			if (c == delimiter || c == quote || c == '\r' || c == '\n') {
+				quoted = true;
+				break;
+			}
+		}
+		if (!quoted) {
+			writer.write(value);
+			return;
+		}
+		writer.write(quote);
+		for (int i = 0; i < value.length(); i++) {
+			final char c = value.charAt(i);
+			if (c == quote) {
+				writer.write(quote);
+			}
+			writer.write(c);
+		}
+		writer.write(quote);
+	}
+
+	@Override
+	public void flush() throws IOException {
+		writer.flush();
+	}
+
+	/**
+	 * Close the writer
+	 *
+	 * @throws IOException if it can not be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		writer.close();
+	}
+}
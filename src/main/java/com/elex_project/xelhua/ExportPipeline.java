@@ -0,0 +1,218 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Export of items into a sheet, as stages connected by a bounded queue.
+ * A source fetches items on one task, a {@link RowWriter} writes rows on another task,
+ * then the workbook is written out by the same task,
+ * so fetching overlaps writing rows, and a slow side holds the other back when the queue is full.
+ * With a streaming workbook, rows are serialized into temp files while they're written.
+ * <pre>{@code
+ * SXSSFWorkbook workbook = createStreamingWorkbook();
+ * RowWriter<Order> writer = new RowWriter<Order>(getSheet(workbook, "Orders"))
+ *         .string(Order::getId)
+ *         .numeric(Order::getAmount);
+ * new ExportPipeline<>(writer)
+ *         .export(sink -> repository.streamOrders(sink), outputStream)
+ *         .whenComplete((rows, e) -> close(workbook));
+ * }</pre>
+ *
+ * @param <T> type of an item
+ * @author Elex
+ */
+public final class ExportPipeline<T> {
+	private static final Object END = new Object();
+
+	private final RowWriter<T> writer;
+	private int queueSize = 1024;
+	private int startRow = 0;
+	private Executor executor = Async.defaultExecutor();
+
+	/**
+	 * Source of items, such as a database query
+	 *
+	 * @param <T> type of an item
+	 */
+	@FunctionalInterface
+	public interface Source<T> {
+		/**
+		 * Fetch items
+		 *
+		 * @param sink receives non-null items in order, which blocks while the queue is full.
+		 * @throws Exception if it can not be fetched
+		 */
+		public void fetch(@NotNull Consumer<? super T> sink) throws Exception;
+	}
+
+	/**
+	 * Export pipeline
+	 *
+	 * @param writer row writer of a sheet
+	 */
+	public ExportPipeline(@NotNull final RowWriter<T> writer) {
+		this.writer = writer;
+	}
+
+	/**
+	 * Set a size of the queue between fetching and writing
+	 *
+	 * @param queueSize number of items
+	 * @return pipeline
+	 * @throws IllegalArgumentException if it's not positive.
+	 */
+	@NotNull
+	public ExportPipeline<T> queueSize(final int queueSize) throws IllegalArgumentException {
+		if (queueSize < 1) {
+			throw new IllegalArgumentException("Queue size should be positive.");
+		}
+		this.queueSize = queueSize;
+		return this;
+	}
+
+	/**
+	 * Set a first row number
+	 *
+	 * @param startRow first row number
+	 * @return pipeline
+	 */
+	@NotNull
+	public ExportPipeline<T> startRow(final int startRow) {
+		this.startRow = startRow;
+		return this;
+	}
+
+	/**
+	 * Set an executor of stages.
+	 * It runs two tasks at the same time, so it should have two threads at least.
+	 * By default, virtual threads if the runtime has them, or daemon threads.
+	 *
+	 * @param executor executor
+	 * @return pipeline
+	 */
+	@NotNull
+	public ExportPipeline<T> executor(@NotNull final Executor executor) {
+		this.executor = executor;
+		return this;
+	}
+
+	/**
+	 * Fetch items and write rows
+	 *
+	 * @param source source of items
+	 * @return future of the next row number
+	 */
+	@NotNull
+	public CompletableFuture<Integer> run(@NotNull final Source<? extends T> source) {
+		return export(source, null);
+	}
+
+	/**
+	 * Fetch items, write rows, then write out the workbook.
+	 * Cancelling the future stops both stages, at the next item fetched and the next batch of rows,
+	 * and the workbook is not written out.
+	 *
+	 * @param source       source of items
+	 * @param outputStream output stream, which is not closed, or null not to write out.
+	 * @return future of the next row number, which fails with an exception of any stage.
+	 */
+	@NotNull
+	public CompletableFuture<Integer> export(@NotNull final Source<? extends T> source,
+	                                         @Nullable final OutputStream outputStream) {
+		final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(queueSize);
+		final AtomicBoolean stopped = new AtomicBoolean(false);
+		final CompletableFuture<Void> fetching = Async.supply(() -> {
+			try {
+				source.fetch(item -> put(queue, item, stopped));
+			} finally {
+				try {
+					put(queue, END, stopped);
+				} catch (CancellationException ignore) {
+				}
+			}
+			return null;
+		}, executor);
+		final CompletableFuture<Integer> writing = Async.supply(() -> {
+			final int next = writeRows(queue, fetching, stopped);
+			fetching.join();
+			checkStopped(stopped);
+			if (null != outputStream) {
+				Xlsx.writeOut(writer.getSheet().getWorkbook(), outputStream);
+			}
+			return next;
+		}, executor);
+		writing.whenComplete((next, e) -> {
+			if (null != e) {
+				stopped.set(true);
+			}
+		});
+		return writing;
+	}
+
+	private int writeRows(@NotNull final BlockingQueue<Object> queue, @NotNull final CompletableFuture<Void> fetching,
+	                      @NotNull final AtomicBoolean stopped) throws InterruptedException {
+		final List<Object> batch = new ArrayList<>(queueSize);
+		int rowNum = startRow;
+		while (true) {
+			checkStopped(stopped);
+			final Object first = queue.poll(100, TimeUnit.MILLISECONDS);
+			if (null == first) {
+				if (fetching.isCompletedExceptionally()) return rowNum; // failure is thrown by join
+				continue;
+			}
+			batch.add(first);
+			queue.drainTo(batch);
+			final List<T> items = new ArrayList<>(batch.size());
+			boolean end = false;
+			for (final Object item : batch) {
+				if (item == END) {
+					end = true;
+					break;
+				}
+				@SuppressWarnings("unchecked") final T t = (T) item;
+				items.add(t);
+			}
+			batch.clear();
+			rowNum = writer.writeRows(rowNum, items);
+			if (end) return rowNum;
+		}
+	}
+
+	/**
+	 * Put an item, or give up if writing rows has failed or the export is cancelled
+	 */
+	private static void put(@NotNull final BlockingQueue<Object> queue, @NotNull final Object item,
+	                        @NotNull final AtomicBoolean stopped) {
+		try {
+			do {
+				checkStopped(stopped);
+			} while (!queue.offer(item, 100, TimeUnit.MILLISECONDS));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Export is interrupted.");
+		}
+	}
+
+	private static void checkStopped(@NotNull final AtomicBoolean stopped) {
+		if (stopped.get()) {
+			throw new CancellationException("Export has been stopped.");
+		}
+	}
+}
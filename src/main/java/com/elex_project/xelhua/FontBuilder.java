@@ -13,14 +13,29 @@ import org.apache.poi.ss.usermodel.Font;
 import org.apache.poi.ss.usermodel.IndexedColors;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Font builder
+ * <p>
+ * An interning builder creates nothing until {@link #get()},
+ * and returns the same font for builders with the same attributes.
  *
  * @author Elex
  */
 public final class FontBuilder {
+	@Nullable
 	private final Font font;
+	@Nullable
+	private final Workbook workbook;
+	private final Map<String, Object> attributes = new HashMap<>();
+	private long nanos;
+	private final Map<String, Consumer<Font>> setters = new LinkedHashMap<>();
 
 	/**
 	 * Font builder
@@ -28,7 +43,24 @@ public final class FontBuilder {
 	 * @param workbook workbook
 	 */
 	public FontBuilder(@NotNull final Workbook workbook) {
-		this.font = workbook.createFont();
+		this(workbook, false);
+	}
+
+	/**
+	 * Font builder
+	 *
+	 * @param workbook workbook
+	 * @param intern   share a font with the same attributes, instead of creating new one
+	 */
+	public FontBuilder(@NotNull final Workbook workbook, final boolean intern) {
+		this.workbook = workbook;
+		if (intern) {
+			this.font = null;
+		} else {
+			final long start = XlsxMetrics.start();
+			this.font = workbook.createFont();
+			this.nanos = XlsxMetrics.elapsed(start);
+		}
 	}
 
 	/**
@@ -39,6 +71,7 @@ public final class FontBuilder {
 	 */
 	public FontBuilder(@NotNull final Workbook workbook, final int index) {
 		this.font = workbook.getFontAt(index);
+		this.workbook = null;
 	}
 
 	/**
@@ -48,6 +81,19 @@ public final class FontBuilder {
 	 */
 	public FontBuilder(@NotNull final Font font) {
 		this.font = font;
+		this.workbook = null;
+	}
+
+	@NotNull
+	private FontBuilder set(@NotNull final String attribute, @NotNull final Object value,
+	                        @NotNull final Consumer<Font> setter) {
+		if (null != font) {
+			setter.accept(font);
+		} else {
+			attributes.put(attribute, value);
+			setters.put(attribute, setter);
+		}
+		return this;
 	}
 
 	/**
@@ -58,8 +104,7 @@ public final class FontBuilder {
 	 */
 	@NotNull
 	public FontBuilder name(@NotNull final String fontName) {
-		font.setFontName(fontName);
-		return this;
+		return set("name", fontName, f -> f.setFontName(fontName));
 	}
 
 	/**
@@ -70,8 +115,7 @@ public final class FontBuilder {
 	 */
 	@NotNull
 	public FontBuilder color(@NotNull final IndexedColors color) {
-		font.setColor(color.getIndex());
-		return this;
+		return set("color", color.getIndex(), f -> f.setColor(color.getIndex()));
 	}
 
 	/**
@@ -82,8 +126,7 @@ public final class FontBuilder {
 	 */
 	@NotNull
 	public FontBuilder bold(final boolean bold) {
-		font.setBold(bold);
-		return this;
+		return set("bold", bold, f -> f.setBold(bold));
 	}
 
 	/**
@@ -104,8 +147,7 @@ public final class FontBuilder {
 	 */
 	@NotNull
 	public FontBuilder italic(final boolean italic) {
-		font.setItalic(italic);
-		return this;
+		return set("italic", italic, f -> f.setItalic(italic));
 	}
 
 	/**
@@ -126,8 +168,7 @@ public final class FontBuilder {
 	 */
 	@NotNull
 	public FontBuilder strikeout(final boolean strikeout) {
-		font.setStrikeout(strikeout);
-		return this;
+		return set("strikeout", strikeout, f -> f.setStrikeout(strikeout));
 	}
 
 	/**
@@ -148,12 +189,8 @@ public final class FontBuilder {
 	 */
 	@NotNull
 	public FontBuilder underline(final boolean underline) {
-		if (underline) {
-			font.setUnderline(Font.U_SINGLE);
-		} else {
-			font.setUnderline(Font.U_NONE);
-		}
-		return this;
+		final byte value = underline ? Font.U_SINGLE : Font.U_NONE;
+		return set("underline", value, f -> f.setUnderline(value));
 	}
 
 	/**
@@ -174,17 +211,28 @@ public final class FontBuilder {
 	 */
 	@NotNull
 	public FontBuilder height(final float point) {
-		font.setFontHeight((short) (point * 20));
-		return this;
+		final short height = (short) (point * 20);
+		return set("height", height, f -> f.setFontHeight(height));
 	}
 
 	/**
 	 * finish building a font
 	 *
-	 * @return font
+	 * @return font, which may be shared if this builder is interning.
 	 */
 	@NotNull
 	public Font get() {
-		return font;
+		if (null != font) {
+			XlsxMetrics.fontBuilt(workbook, nanos);
+			return font;
+		}
+		final long start = XlsxMetrics.start();
+		final Font shared = StyleRegistry.internFont(workbook, attributes, f -> {
+			for (final Consumer<Font> setter : setters.values()) {
+				setter.accept(f);
+			}
+		});
+		XlsxMetrics.fontBuilt(workbook, XlsxMetrics.elapsed(start));
+		return shared;
 	}
 }
@@ -0,0 +1,182 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Formula evaluators, cached for each workbook.
+ * A cached evaluator keeps results of formulas between evaluations,
+ * and writes by {@link Xlsx} helpers, {@link RowWriter} and {@link SheetBuffer} invalidate them,
+ * so only formulas depending on changed cells are calculated again.
+ * <p>
+ * An evaluator refers its workbook, so it's softly referenced
+ * and may be created again after a garbage collection.
+ *
+ * @author Elex
+ */
+final class Formulas {
+	private static final WeakIdentityMap<Workbook, SoftReference<FormulaEvaluator>> EVALUATORS =
+			new WeakIdentityMap<>();
+
+	private Formulas() {
+	}
+
+	/**
+	 * Get a cached evaluator of a workbook, or create one
+	 *
+	 * @param workbook workbook
+	 * @return evaluator
+	 */
+	@NotNull
+	static FormulaEvaluator evaluator(@NotNull final Workbook workbook) {
+		FormulaEvaluator evaluator = cached(workbook);
+		if (null == evaluator) {
+			evaluator = workbook.getCreationHelper().createFormulaEvaluator();
+			EVALUATORS.put(workbook, new SoftReference<>(evaluator));
+		}
+		return evaluator;
+	}
+
+	@Nullable
+	private static FormulaEvaluator cached(@NotNull final Workbook workbook) {
+		final SoftReference<FormulaEvaluator> reference = EVALUATORS.get(workbook);
+		return null == reference ? null : reference.get();
+	}
+
+	/**
+	 * Drop a cached evaluator
+	 *
+	 * @param workbook workbook
+	 */
+	static void release(@NotNull final Workbook workbook) {
+		EVALUATORS.remove(workbook);
+	}
+
+	/**
+	 * A value of a cell has been changed
+	 *
+	 * @param cell cell
+	 */
+	static void changed(@NotNull final Cell cell) {
+		if (EVALUATORS.isEmpty()) return;
+		final FormulaEvaluator evaluator = cached(cell.getSheet().getWorkbook());
+		if (null != evaluator) {
+			evaluator.notifyUpdateCell(cell);
+		}
+	}
+
+	/**
+	 * A formula of a cell has been changed
+	 *
+	 * @param cell cell
+	 */
+	static void formulaChanged(@NotNull final Cell cell) {
+		if (EVALUATORS.isEmpty()) return;
+		final FormulaEvaluator evaluator = cached(cell.getSheet().getWorkbook());
+		if (null != evaluator) {
+			evaluator.notifySetFormula(cell);
+		}
+	}
+
+	/**
+	 * Many cells of a workbook have been changed, so clear all cached results
+	 *
+	 * @param workbook workbook
+	 */
+	static void changed(@NotNull final Workbook workbook) {
+		final FormulaEvaluator evaluator = cached(workbook);
+		if (null != evaluator) {
+			evaluator.clearAllCachedResultValues();
+		}
+	}
+
+	/**
+	 * Evaluate formula cells in a range, and keep results in cells
+	 *
+	 * @param sheet sheet
+	 * @param range range, or null for the whole sheet
+	 * @return number of formula cells
+	 */
+	static int evaluate(@NotNull final Sheet sheet, @Nullable final CellRangeAddress range) {
+		final FormulaEvaluator evaluator = evaluator(sheet.getWorkbook());
+		final List<Cell> cells = formulaCells(sheet, range);
+		for (final Cell cell : cells) {
+			evaluator.evaluateFormulaCell(cell);
+		}
+		return cells.size();
+	}
+
+	/**
+	 * Evaluate formula cells of all sheets, and keep results in cells
+	 *
+	 * @param workbook workbook
+	 * @return number of formula cells
+	 */
+	static int evaluateAll(@NotNull final Workbook workbook) {
+		int count = 0;
+		for (final Sheet sheet : workbook) {
+			count += evaluate(sheet, null);
+		}
+		return count;
+	}
+
+	/**
+	 * Evaluate formula cells of all sheets on an executor, and wait for it.
+	 * A workbook is not thread-safe, so sheets are evaluated one after another by a single task,
+	 * while the calling thread waits.
+	 *
+	 * @param workbook workbook
+	 * @param executor executor
+	 * @return number of formula cells
+	 */
+	static int evaluateAll(@NotNull final Workbook workbook, @NotNull final Executor executor) {
+		try {
+			return CompletableFuture.supplyAsync(() -> evaluateAll(workbook), executor).join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	@NotNull
+	private static List<Cell> formulaCells(@NotNull final Sheet sheet, @Nullable final CellRangeAddress range) {
+		final List<Cell> cells = new ArrayList<>();
+		for (final Row row : sheet) {
+			if (null != range && (row.getRowNum() < range.getFirstRow() || row.getRowNum() > range.getLastRow())) {
+				continue;
+			}
+			for (final Cell cell : row) {
+				if (cell.getCellType() != CellType.FORMULA) continue;
+				if (null != range && (cell.getColumnIndex() < range.getFirstColumn()
+						|| cell.getColumnIndex() > range.getLastColumn())) {
+					continue;
+				}
+				cells.add(cell);
+			}
+		}
+		return cells;
+	}
+}
@@ -0,0 +1,232 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Column index by header name.
+ * It's built once from a header row, then a column is looked up
+ * without iterating the header row or allocating anything.
+ * <pre>{@code
+ * HeaderIndex header = new HeaderIndex(getRow(sheet, 0), true, true);
+ * for (Row row : sheet) {
+ *     String name = readString(row, "Name", header);
+ * }
+ * }</pre>
+ *
+ * @author Elex
+ */
+public final class HeaderIndex {
+	private final boolean trim, ignoreCase;
+	private final String[] keys;
+	private final int[] columns;
+	private final int mask;
+	private int size;
+
+	/**
+	 * Column index of a header row, names are compared exactly.
+	 *
+	 * @param headerRow header row with names
+	 */
+	public HeaderIndex(@NotNull final Row headerRow) {
+		this(headerRow, false, false);
+	}
+
+	/**
+	 * Column index of a header row
+	 *
+	 * @param headerRow  header row with names
+	 * @param trim       ignore leading and trailing white spaces?
+	 * @param ignoreCase ignore case?
+	 */
+	public HeaderIndex(@NotNull final Row headerRow, final boolean trim, final boolean ignoreCase) {
+		this(Math.max(headerRow.getLastCellNum(), 0), trim, ignoreCase);
+		for (final Cell cell : headerRow) {
+			put(nameOf(cell), cell.getColumnIndex());
+		}
+	}
+
+	/**
+	 * Column index of a header row, names are compared exactly.
+	 *
+	 * @param headerRow header row with names, from a streaming reader
+	 */
+	public HeaderIndex(@NotNull final RowView headerRow) {
+		this(headerRow, false, false);
+	}
+
+	/**
+	 * Column index of a header row
+	 *
+	 * @param headerRow  header row with names, from a streaming reader
+	 * @param trim       ignore leading and trailing white spaces?
+	 * @param ignoreCase ignore case?
+	 */
+	public HeaderIndex(@NotNull final RowView headerRow, final boolean trim, final boolean ignoreCase) {
+		this(Math.max(headerRow.getLastCellNum(), 0), trim, ignoreCase);
+		for (int colNum = 0; colNum < headerRow.getLastCellNum(); colNum++) {
+			switch (headerRow.getCellType(colNum)) {
+				case STRING:
+					put(headerRow.readString(colNum), colNum);
+					break;
+				case NUMERIC:
+					put(String.valueOf(headerRow.readNumeric(colNum)), colNum);
+					break;
+				case BOOLEAN:
+					put(String.valueOf(headerRow.readBoolean(colNum)), colNum);
+					break;
+				default:
+					break;
+			}
+		}
+	}
+
+	private HeaderIndex(final int capacity, final boolean trim, final boolean ignoreCase) {
+		this.trim = trim;
+		this.ignoreCase = ignoreCase;
+		int tableSize = 8;
+		while (tableSize < capacity * 2) {
+			tableSize <<= 1;
+		}
+		this.keys = new String[tableSize];
+		this.columns = new int[tableSize];
+		this.mask = tableSize - 1;
+	}
+
+	/**
+	 * Name of a header cell, in the same way as {@link Xlsx#getCell(Row, String, Row)}
+	 *
+	 * @param cell header cell
+	 * @return name, or an empty string
+	 */
+	@NotNull
+	static String nameOf(@NotNull final Cell cell) {
+		try {
+			switch (cell.getCellType()) {
+				case NUMERIC:
+					return String.valueOf(cell.getNumericCellValue());
+				case STRING:
+				case FORMULA:
+					return cell.getStringCellValue();
+				case BOOLEAN:
+					return String.valueOf(cell.getBooleanCellValue());
+				default:
+					return "";
+			}
+		} catch (RuntimeException e) {
+			return "";
+		}
+	}
+
+	private void put(@NotNull final String name, final int colNum) {
+		final int start = start(name), end = end(name, start);
+		if (start >= end) return;
+		if (size * 2 >= keys.length) return; // header row was larger than expected
+		final String key = normalize(name, start, end);
+		int slot = hash(key, 0, key.length()) & mask;
+		while (null != keys[slot]) {
+			if (keys[slot].equals(key)) return; // the first one wins
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = key;
+		columns[slot] = colNum;
+		size++;
+	}
+
+	/**
+	 * Column number of a name
+	 *
+	 * @param name column name in a header row
+	 * @return column number, or -1 if not found
+	 */
+	public int getColumn(@NotNull final String name) {
+		final int start = start(name), end = end(name, start);
+		int slot = hash(name, start, end) & mask;
+		String key;
+		while (null != (key = keys[slot])) {
+			if (matches(key, name, start, end)) {
+				return columns[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * Has a column with that name?
+	 *
+	 * @param name column name
+	 * @return true if found
+	 */
+	public boolean contains(@NotNull final String name) {
+		return getColumn(name) >= 0;
+	}
+
+	/**
+	 * Number of named columns
+	 *
+	 * @return size
+	 */
+	public int size() {
+		return size;
+	}
+
+	private int start(@NotNull final String name) {
+		int start = 0;
+		if (trim) {
+			while (start < name.length() && name.charAt(start) <= ' ') {
+				start++;
+			}
+		}
+		return start;
+	}
+
+	private int end(@NotNull final String name, final int start) {
+		int end = name.length();
+		if (trim) {
+			while (end > start && name.charAt(end - 1) <= ' ') {
+				end--;
+			}
+		}
+		return end;
+	}
+
+	private char fold(final char c) {
+		return ignoreCase ? Character.toLowerCase(Character.toUpperCase(c)) : c;
+	}
+
+	@NotNull
+	private String normalize(@NotNull final String name, final int start, final int end) {
+		final char[] chars = new char[end - start];
+		for (int i = start; i < end; i++) {
+			chars[i - start] = fold(name.charAt(i));
+		}
+		return new String(chars);
+	}
+
+	private int hash(@NotNull final String name, final int start, final int end) {
+		int h = 0;
+		for (int i = start; i < end; i++) {
+			h = 31 * h + fold(name.charAt(i));
+		}
+		return h ^ (h >>> 16);
+	}
+
+	private boolean matches(@NotNull final String key, @NotNull final String name, final int start, final int end) {
+		if (key.length() != end - start) return false;
+		for (int i = start; i < end; i++) {
+			if (key.charAt(i - start) != fold(name.charAt(i))) return false;
+		}
+		return true;
+	}
+}
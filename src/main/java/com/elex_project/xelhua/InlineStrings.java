@@ -0,0 +1,120 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFCell;
+import org.apache.xmlbeans.XmlCursor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTCell;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTRst;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.STCellType;
+
+import javax.xml.namespace.QName;
+
+/**
+ * Inline strings, which are stored in cells instead of the shared strings table.
+ * The shared strings table of a xssf workbook keeps every distinct string in memory until saved,
+ * so inline strings are better for columns of unique values, such as ids or free text.
+ * A streaming workbook writes inline strings by default.
+ * <pre>{@code
+ * Workbook workbook = createWorkbook();
+ * InlineStrings.enable(workbook); // write(cell, "text") writes an inline string
+ * }</pre>
+ *
+ * @author Elex
+ */
+public final class InlineStrings {
+	private static final WeakIdentityMap<Workbook, Boolean> ENABLED = new WeakIdentityMap<>();
+	private static final QName XML_SPACE = new QName("http://www.w3.org/XML/1998/namespace", "space");
+	private static final int MAX_LENGTH = SpreadsheetVersion.EXCEL2007.getMaxTextLength();
+
+	private InlineStrings() {
+	}
+
+	/**
+	 * Write strings of a workbook as inline strings,
+	 * by {@link Xlsx#write(Cell, String)}, {@link RowWriter}, {@link SheetMapper} and {@link SheetBuffer}.
+	 *
+	 * @param workbook workbook of xlsx format
+	 * @throws IllegalArgumentException for xls format, which has no inline strings.
+	 */
+	public static void enable(@NotNull final Workbook workbook) throws IllegalArgumentException {
+		if (workbook instanceof HSSFWorkbook) {
+			throw new IllegalArgumentException("Inline strings are supported by xlsx format only.");
+		}
+		ENABLED.put(workbook, Boolean.TRUE);
+	}
+
+	/**
+	 * Are strings of a workbook written as inline strings?
+	 *
+	 * @param workbook workbook
+	 * @return true if enabled
+	 */
+	public static boolean isEnabled(@NotNull final Workbook workbook) {
+		return null != ENABLED.get(workbook);
+	}
+
+	/**
+	 * Write an inline string into a cell.
+	 * Cells of a xssf workbook get an inline string, others are written as usual.
+	 *
+	 * @param cell  cell
+	 * @param value string
+	 * @throws IllegalArgumentException if the string is longer than 32767 characters.
+	 */
+	public static void write(@NotNull final Cell cell, @NotNull final String value) throws IllegalArgumentException {
+		if (!(cell instanceof XSSFCell) || cell.getCellType() == CellType.FORMULA) {
+			cell.setCellValue(value);
+			return;
+		}
+		if (value.length() > MAX_LENGTH) {
+			throw new IllegalArgumentException("The maximum length of cell contents (text) is "
+					+ MAX_LENGTH + " characters");
+		}
+		final CTCell ctCell = ((XSSFCell) cell).getCTCell();
+		if (ctCell.isSetV()) {
+			ctCell.unsetV();
+		}
+		if (ctCell.isSetIs()) {
+			ctCell.unsetIs();
+		}
+		ctCell.setT(STCellType.INLINE_STR);
+		final CTRst is = ctCell.addNewIs();
+		is.setT(value);
+		if (!value.isEmpty() && (Character.isWhitespace(value.charAt(0))
+				|| Character.isWhitespace(value.charAt(value.length() - 1)))) {
+			final XmlCursor cursor = is.xgetT().newCursor();
+			cursor.toNextToken();
+			cursor.insertAttributeWithValue(XML_SPACE, "preserve");
+			cursor.dispose();
+		}
+	}
+
+	/**
+	 * Write a string, inline if enabled for the workbook.
+	 *
+	 * @param cell  cell
+	 * @param value string, null for a blank cell
+	 */
+	static void writeString(@NotNull final Cell cell, @Nullable final String value) {
+		if (null != value && isEnabled(cell.getSheet().getWorkbook())) {
+			write(cell, value);
+		} else {
+			cell.setCellValue(value);
+		}
+	}
+}
@@ -0,0 +1,439 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Read-only sheet of a xlsx file, which parses rows on access.
+ * The sheet xml is copied into a temp file with byte offsets of rows when it's opened,
+ * then a row is parsed from its own bytes, and recently used rows are cached.
+ * <pre>{@code
+ * try (XlsxReader reader = XlsxReader.open(file)) {
+ *     LazySheet sheet = reader.getSheet("Sheet1");
+ *     RowView row = sheet.getRowOrNull(1000);
+ * }
+ * }</pre>
+ *
+ * @author Elex
+ * @see XlsxReader#getSheet(String)
+ */
+public final class LazySheet implements Closeable {
+	private static final int CACHE_SIZE = 1024;
+	private static final byte[] OPEN = "<sheetData>".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] CLOSE = "</sheetData>".getBytes(StandardCharsets.US_ASCII);
+	/**
+	 * Cached in place of a row without cells, not to parse it again
+	 */
+	private static final RowView EMPTY = new RowView(false);
+
+	private final String name;
+	private final StringTable strings;
+	private final CellFormats formats;
+	private final boolean date1904;
+	private final File file;
+	private final FileChannel channel;
+	private final int[] rowNums;
+	private final long[] offsets;
+	private final int[] lengths;
+	private final int size;
+	private final Map<Integer, RowView> cache = new LruCache<>(CACHE_SIZE);
+
+	private LazySheet(@NotNull final String name, @NotNull final StringTable strings,
+	                  @NotNull final CellFormats formats, final boolean date1904,
+	                  @NotNull final File file, @NotNull final Indexer indexer) throws IOException {
+		this.name = name;
+		this.strings = strings;
+		this.formats = formats;
+		this.date1904 = date1904;
+		this.file = file;
+		this.rowNums = indexer.rowNums;
+		this.offsets = indexer.offsets;
+		this.lengths = indexer.lengths;
+		this.size = indexer.size;
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+	}
+
+	/**
+	 * Copy a sheet part into a temp file, and index its rows
+	 *
+	 * @param name        sheet name
+	 * @param inputStream sheet part, which is not closed
+	 * @param strings     shared strings
+	 * @param formats     cell formats
+	 * @param date1904    true if the workbook is in the 1904 date system
+	 * @return sheet
+	 * @throws IOException if it can not be read or written
+	 */
+	@NotNull
+	static LazySheet index(@NotNull final String name, @NotNull final InputStream inputStream,
+	                       @NotNull final StringTable strings, @NotNull final CellFormats formats,
+	                       final boolean date1904) throws IOException {
+		final File file = File.createTempFile("xelhua-sheet-", ".xml");
+		try {
+			final Indexer indexer = new Indexer();
+			try (OutputStream outputStream = new FileOutputStream(file)) {
+				final byte[] buffer = new byte[64 * 1024];
+				int read;
+				while ((read = inputStream.read(buffer)) >= 0) {
+					indexer.scan(buffer, read);
+					outputStream.write(buffer, 0, read);
+				}
+			}
+			return new LazySheet(name, strings, formats, date1904, file, indexer);
+		} catch (IOException | RuntimeException e) {
+			if (!file.delete()) {
+				file.deleteOnExit();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Name of the sheet
+	 *
+	 * @return name
+	 */
+	@NotNull
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Number of rows in the sheet xml
+	 *
+	 * @return number of rows
+	 */
+	public int getPhysicalNumberOfRows() {
+		return size;
+	}
+
+	/**
+	 * First row number
+	 *
+	 * @return row number, or -1 if there's no row.
+	 */
+	public int getFirstRowNum() {
+		return size == 0 ? -1 : rowNums[0];
+	}
+
+	/**
+	 * Last row number
+	 *
+	 * @return row number, or -1 if there's no row.
+	 */
+	public int getLastRowNum() {
+		return size == 0 ? -1 : rowNums[size - 1];
+	}
+
+	/**
+	 * Get a row, which is parsed on the first access.
+	 *
+	 * @param rowNum row number
+	 * @return row, or null if there's no cell in the row.
+	 * @throws UncheckedIOException if it can not be read
+	 */
+	@Nullable
+	public RowView getRowOrNull(final int rowNum) throws UncheckedIOException {
+		synchronized (cache) {
+			final RowView row = cache.get(rowNum);
+			if (null != row) return row == EMPTY ? null : row;
+		}
+		final int index = Arrays.binarySearch(rowNums, 0, size, rowNum);
+		if (index < 0) return null;
+		final RowView[] parsed = new RowView[1];
+		parse(index, index, row -> parsed[0] = row.copy());
+		synchronized (cache) {
+			cache.put(rowNum, null == parsed[0] ? EMPTY : parsed[0]);
+		}
+		return parsed[0];
+	}
+
+	/**
+	 * Read rows in a range, without caching them
+	 *
+	 * @param firstRow first row number (inclusive)
+	 * @param lastRow  last row number (inclusive)
+	 * @param handler  row callback
+	 * @throws UncheckedIOException if it can not be read
+	 */
+	public void read(final int firstRow, final int lastRow, @NotNull final RowHandler handler)
+			throws UncheckedIOException {
+		int first = Arrays.binarySearch(rowNums, 0, size, firstRow);
+		if (first < 0) first = -first - 1;
+		int last = Arrays.binarySearch(rowNums, 0, size, lastRow);
+		if (last < 0) last = -last - 2;
+		if (first > last) return;
+		parse(first, last, handler);
+	}
+
+	private void parse(final int first, final int last, @NotNull final RowHandler handler) {
+		final long start = offsets[first];
+		final long end = offsets[last] + lengths[last];
+		final SheetHandler sheetHandler = new SheetHandler(strings, formats, date1904, handler);
+		sheetHandler.skipTo(rowNums[first]);
+		try (InputStream inputStream = new SequenceInputStream(new SequenceInputStream(
+				new ByteArrayInputStream(OPEN), new RegionInputStream(channel, start, end)),
+				new ByteArrayInputStream(CLOSE))) {
+			XmlParsers.parse(inputStream, sheetHandler);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Delete the temp file
+	 */
+	@Override
+	public void close() {
+		try {
+			channel.close();
+		} catch (IOException ignore) {
+		}
+		if (!file.delete()) {
+			file.deleteOnExit();
+		}
+	}
+
+	/**
+	 * Reads a region of a file with positional reads, so that readers don't share a position.
+	 */
+	private static final class RegionInputStream extends InputStream {
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocate(16 * 1024);
+		private long position;
+		private final long end;
+
+		private RegionInputStream(@NotNull final FileChannel channel, final long position, final long end) {
+			this.channel = channel;
+			this.position = position;
+			this.end = end;
+			buffer.limit(0);
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (!fill()) return -1;
+			return buffer.get() & 0xff;
+		}
+
+		@Override
+		public int read(@NotNull final byte[] b, final int off, final int len) throws IOException {
+			if (len == 0) return 0;
+			if (!fill()) return -1;
+			final int n = Math.min(len, buffer.remaining());
+			buffer.get(b, off, n);
+			return n;
+		}
+
+		private boolean fill() throws IOException {
+			if (buffer.hasRemaining()) return true;
+			if (position >= end) return false;
+			buffer.clear();
+			buffer.limit((int) Math.min(buffer.capacity(), end - position));
+			final int read = channel.read(buffer, position);
+			if (read <= 0) return false;
+			position += read;
+			buffer.flip();
+			return true;
+		}
+	}
+
+	/**
+	 * Finds byte offsets of row elements while a sheet xml is copied.
+	 * Rows are found by their tags only, since '<' never appears unescaped in text or attribute values,
+	 * except in comments and CDATA sections, which are skipped.
+	 * A '>' may appear unescaped in attribute values, so quoted values of a row tag are skipped.
+	 */
+	private static final class Indexer {
+		private static final int TEXT = 0, NAME = 1, ROW_TAG = 2, ROW_END = 3, COMMENT = 4, CDATA = 5;
+		private static final byte[] COMMENT_START = "!--".getBytes(StandardCharsets.US_ASCII);
+		private static final byte[] CDATA_START = "![CDATA[".getBytes(StandardCharsets.US_ASCII);
+
+		private int[] rowNums = new int[1024];
+		private long[] offsets = new long[1024];
+		private int[] lengths = new int[1024];
+		private int size;
+
+		private long position;
+		private int state = TEXT;
+		private byte[] tag = new byte[64];
+		private int tagLength;
+		private long tagStart;
+		private byte quote;
+		private int closing;
+		private int rowNum = -1;
+		private long rowStart;
+
+		private void scan(@NotNull final byte[] buffer, final int length) {
+			for (int i = 0; i < length; i++, position++) {
+				final byte b = buffer[i];
+				switch (state) {
+					case TEXT:
+						if (b == '<') {
+							state = NAME;
+							tagStart = position;
+							tagLength = 0;
+						}
+						break;
+					case NAME:
+						if (b == '>' || b == ' ' || b == '\t' || b == '\r' || b == '\n' || (b == '/' && tagLength > 0)) {
+							endOfName(b);
+						} else if (tagLength < tag.length) {
+							tag[tagLength++] = b;
+							if (startsWith(COMMENT_START)) {
+								state = COMMENT;
+								closing = 0;
+							} else if (startsWith(CDATA_START)) {
+								state = CDATA;
+								closing = 0;
+							}
+						} else {
+							state = TEXT;
+						}
+						break;
+					case ROW_TAG:
+						if (b == '>' && 0 == quote) {
+							startRow(tagLength > 0 && tag[tagLength - 1] == '/');
+							break;
+						}
+						if (0 != quote) {
+							if (b == quote) quote = 0;
+						} else if (b == '"' || b == '\'') {
+							quote = b;
+						}
+						if (tagLength == tag.length) {
+							tag = Arrays.copyOf(tag, tag.length * 2);
+						}
+						tag[tagLength++] = b;
+						break;
+					case ROW_END:
+						if (b == '>') {
+							endRow();
+						}
+						break;
+					case COMMENT:
+					case CDATA:
+						// until "-->" or "]]>"
+						if (b == '>' && closing >= 2) {
+							state = TEXT;
+						} else {
+							closing = b == (state == COMMENT ? '-' : ']') ? closing + 1 : 0;
+						}
+						break;
+					default:
+						break;
+				}
+			}
+		}
+
+		private void endOfName(final byte b) {
+			final boolean end = tagLength > 0 && tag[0] == '/';
+			if (!isRow(end ? 1 : 0)) {
+				state = TEXT;
+			} else if (end) {
+				if (b == '>') {
+					endRow();
+				} else {
+					state = ROW_END;
+				}
+			} else {
+				tagLength = 0;
+				if (b == '>') {
+					startRow(false);
+				} else {
+					tag[tagLength++] = b;
+					quote = 0;
+					state = ROW_TAG;
+				}
+			}
+		}
+
+		private boolean startsWith(@NotNull final byte[] prefix) {
+			if (tagLength != prefix.length) return false;
+			for (int i = 0; i < prefix.length; i++) {
+				if (tag[i] != prefix[i]) return false;
+			}
+			return true;
+		}
+
+		private boolean isRow(final int from) {
+			int start = from;
+			for (int i = from; i < tagLength; i++) {
+				if (tag[i] == ':') start = i + 1;
+			}
+			return tagLength - start == 3 && tag[start] == 'r' && tag[start + 1] == 'o' && tag[start + 2] == 'w';
+		}
+
+		private void startRow(final boolean empty) {
+			final int r = parseRowRef();
+			rowNum = r > 0 ? r - 1 : rowNum + 1;
+			rowStart = tagStart;
+			state = TEXT;
+			if (empty) {
+				rowStart = -1;
+			}
+		}
+
+		private void endRow() {
+			state = TEXT;
+			if (rowStart < 0) return;
+			if (size > 0 && rowNum <= rowNums[size - 1]) {
+				throw new IllegalStateException("Rows of a sheet should be in order.");
+			}
+			if (size == rowNums.length) {
+				rowNums = Arrays.copyOf(rowNums, size * 2);
+				offsets = Arrays.copyOf(offsets, size * 2);
+				lengths = Arrays.copyOf(lengths, size * 2);
+			}
+			rowNums[size] = rowNum;
+			offsets[size] = rowStart;
+			lengths[size] = (int) (position + 1 - rowStart);
+			size++;
+			rowStart = -1;
+		}
+
+		/**
+		 * Value of the attribute r in the row tag
+		 *
+		 * @return one-based row number, or 0 if not found.
+		 */
+		private int parseRowRef() {
+			for (int i = 1; i < tagLength; i++) {
+				if (tag[i] != 'r' || !isSpace(tag[i - 1])) continue;
+				int j = i + 1;
+				while (j < tagLength && isSpace(tag[j])) j++;
+				if (j >= tagLength || tag[j] != '=') continue;
+				j++;
+				while (j < tagLength && isSpace(tag[j])) j++;
+				if (j >= tagLength || (tag[j] != '"' && tag[j] != '\'')) continue;
+				int value = 0;
+				for (j++; j < tagLength && tag[j] >= '0' && tag[j] <= '9'; j++) {
+					value = value * 10 + (tag[j] - '0');
+				}
+				return value;
+			}
+			return 0;
+		}
+
+		private static boolean isSpace(final byte b) {
+			return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+		}
+	}
+}
@@ -0,0 +1,42 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Map which keeps the most recently used entries only.
+ * It's not thread-safe.
+ *
+ * @param <K> type of keys
+ * @param <V> type of values
+ * @author Elex
+ */
+final class LruCache<K, V> extends LinkedHashMap<K, V> {
+	private static final long serialVersionUID = 1L;
+
+	private final int maxSize;
+
+	/**
+	 * Create a cache
+	 *
+	 * @param maxSize number of entries kept
+	 */
+	LruCache(final int maxSize) {
+		super(maxSize * 2, 0.75f, true);
+		this.maxSize = maxSize;
+	}
+
+	@Override
+	protected boolean removeEldestEntry(final Map.Entry<K, V> eldest) {
+		return size() > maxSize;
+	}
+}
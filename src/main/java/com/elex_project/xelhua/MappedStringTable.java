@@ -0,0 +1,158 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Shared strings in a memory-mapped temp file.
+ * Strings are kept as UTF-8 bytes outside of the heap, with an index of offsets,
+ * and recently used strings are cached.
+ *
+ * @author Elex
+ */
+final class MappedStringTable implements StringTable {
+	private static final int CHUNK_SIZE = 1 << 30;
+	private static final int CACHE_SIZE = 4096;
+
+	private final File file;
+	private final MappedByteBuffer[] chunks;
+	private final long[] offsets;
+	private final int[] lengths;
+	private final int size;
+	private final Map<Integer, String> cache = new LruCache<>(CACHE_SIZE);
+
+	private MappedStringTable(@NotNull final File file, @NotNull final MappedByteBuffer[] chunks,
+	                          @NotNull final long[] offsets, @NotNull final int[] lengths, final int size) {
+		this.file = file;
+		this.chunks = chunks;
+		this.offsets = offsets;
+		this.lengths = lengths;
+		this.size = size;
+	}
+
+	/**
+	 * Spill shared strings of a package into a temp file
+	 *
+	 * @param pkg package
+	 * @return string table, which deletes the temp file when closed.
+	 * @throws IOException if it can not be read or written
+	 */
+	@NotNull
+	static MappedStringTable spill(@NotNull final OPCPackage pkg) throws IOException {
+		final File file = File.createTempFile("xelhua-strings-", ".bin");
+		try {
+			final Writer writer = new Writer();
+			try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(file), 64 * 1024)) {
+				StringTable.parse(pkg, value -> {
+					try {
+						writer.write(outputStream, value);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+			final MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((writer.position + CHUNK_SIZE - 1) / CHUNK_SIZE)];
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+				for (int i = 0; i < chunks.length; i++) {
+					final long position = (long) i * CHUNK_SIZE;
+					chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, position,
+							Math.min(CHUNK_SIZE, writer.position - position));
+				}
+			}
+			return new MappedStringTable(file, chunks, writer.offsets, writer.lengths, writer.size);
+		} catch (IOException | RuntimeException e) {
+			if (!file.delete()) {
+				file.deleteOnExit();
+			}
+			throw e;
+		}
+	}
+
+	@NotNull
+	@Override
+	public String get(final int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("No shared string at " + index);
+		}
+		synchronized (cache) {
+			final String value = cache.get(index);
+			if (null != value) return value;
+		}
+		final long offset = offsets[index];
+		final ByteBuffer chunk = chunks[(int) (offset / CHUNK_SIZE)].duplicate();
+		chunk.position((int) (offset % CHUNK_SIZE));
+		final byte[] bytes = new byte[lengths[index]];
+		chunk.get(bytes);
+		final String value = new String(bytes, StandardCharsets.UTF_8);
+		synchronized (cache) {
+			cache.put(index, value);
+		}
+		return value;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Delete the temp file.
+	 * Mapped memory is released by the garbage collector.
+	 */
+	@Override
+	public void close() {
+		if (!file.delete()) {
+			file.deleteOnExit();
+		}
+	}
+
+	/**
+	 * Writes strings, so that none of them crosses a boundary of chunks.
+	 */
+	private static final class Writer {
+		private long[] offsets = new long[1024];
+		private int[] lengths = new int[1024];
+		private int size;
+		private long position;
+
+		private void write(@NotNull final OutputStream outputStream, @NotNull final String value) throws IOException {
+			final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			final long remaining = CHUNK_SIZE - position % CHUNK_SIZE;
+			if (bytes.length > remaining) {
+				for (long i = 0; i < remaining; i++) {
+					outputStream.write(0);
+				}
+				position += remaining;
+			}
+			if (size == offsets.length) {
+				offsets = Arrays.copyOf(offsets, size * 2);
+				lengths = Arrays.copyOf(lengths, size * 2);
+			}
+			offsets[size] = position;
+			lengths[size] = bytes.length;
+			size++;
+			outputStream.write(bytes);
+			position += bytes.length;
+		}
+	}
+}
@@ -0,0 +1,172 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.apache.poi.ss.usermodel.Workbook;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Builds sheets of a workbook concurrently.
+ * Each sheet is filled into its own {@link SheetBuffer} on a worker thread,
+ * then the buffers are written into a workbook in order of sheets, as soon as each of them is filled.
+ * A workbook is not thread-safe, so only the fillers run in parallel;
+ * all POI work, {@link SheetBuffer#writeTo(org.apache.poi.ss.usermodel.Sheet)}, runs serially on the calling thread.
+ * <pre>{@code
+ * Workbook workbook = new ParallelWorkbookBuilder()
+ *         .sheet("Sales", buffer -> fillSales(buffer))
+ *         .sheet("Stock", buffer -> fillStock(buffer))
+ *         .build(createStreamingWorkbook());
+ * writeOut(workbook, file);
+ * }</pre>
+ *
+ * @author Elex
+ */
+public final class ParallelWorkbookBuilder {
+	private final List<String> names = new ArrayList<>();
+	private final List<Consumer<SheetBuffer>> fillers = new ArrayList<>();
+
+	/**
+	 * Parallel workbook builder
+	 */
+	public ParallelWorkbookBuilder() {
+	}
+
+	/**
+	 * Add a sheet
+	 *
+	 * @param name   name of the sheet
+	 * @param filler fills a buffer of the sheet, on a worker thread.
+	 * @return builder
+	 * @throws IllegalArgumentException if a sheet with that name has been added, ignoring case like Excel does.
+	 */
+	@NotNull
+	public ParallelWorkbookBuilder sheet(@NotNull final String name, @NotNull final Consumer<SheetBuffer> filler)
+			throws IllegalArgumentException {
+		for (final String added : names) {
+			if (added.equalsIgnoreCase(name)) {
+				throw new IllegalArgumentException("Sheet '" + name + "' has been added already.");
+			}
+		}
+		names.add(name);
+		fillers.add(filler);
+		return this;
+	}
+
+	/**
+	 * Fill sheets on the common pool, and write them into a workbook.
+	 *
+	 * @param workbook workbook
+	 * @return the workbook
+	 */
+	@NotNull
+	public Workbook build(@NotNull final Workbook workbook) {
+		return build(workbook, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Fill sheets on an executor, and write them into a workbook.
+	 * If a filler fails, its exception is thrown as soon as it fails, fillers not started yet are skipped,
+	 * and running fillers are interrupted; a filler stops early only if it's blocked
+	 * in an interruptible call or checks {@link Thread#isInterrupted()}.
+	 *
+	 * @param workbook workbook
+	 * @param executor executor which runs fillers
+	 * @return the workbook
+	 */
+	@NotNull
+	public Workbook build(@NotNull final Workbook workbook, @NotNull final Executor executor) {
+		final List<CompletableFuture<SheetBuffer>> futures = new ArrayList<>(names.size());
+		final List<Task> tasks = new ArrayList<>(names.size());
+		final CompletableFuture<Void> failure = new CompletableFuture<>();
+		for (int i = 0; i < names.size(); i++) {
+			final Task task = new Task(new SheetBuffer(names.get(i)), fillers.get(i));
+			final CompletableFuture<SheetBuffer> future = CompletableFuture.supplyAsync(task, executor);
+			future.whenComplete((buffer, e) -> {
+				if (null != e) {
+					failure.completeExceptionally(e);
+				}
+			});
+			tasks.add(task);
+			futures.add(future);
+		}
+		try {
+			for (final CompletableFuture<SheetBuffer> future : futures) {
+				CompletableFuture.anyOf(future, failure).join(); // a later sheet may fail first
+				final SheetBuffer buffer = future.join();
+				buffer.writeTo(Xlsx.getSheet(workbook, buffer.getName()));
+			}
+		} catch (CompletionException e) {
+			for (final Task task : tasks) {
+				task.stop();
+			}
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw e;
+		}
+		return workbook;
+	}
+
+	/**
+	 * Fills a buffer, and knows its thread while running, to interrupt it.
+	 * A stopped task which has not started yet doesn't run its filler.
+	 */
+	private static final class Task implements Supplier<SheetBuffer> {
+		private final SheetBuffer buffer;
+		private final Consumer<SheetBuffer> filler;
+		private Thread runner;
+		private boolean stopped;
+
+		private Task(@NotNull final SheetBuffer buffer, @NotNull final Consumer<SheetBuffer> filler) {
+			this.buffer = buffer;
+			this.filler = filler;
+		}
+
+		@Override
+		public SheetBuffer get() {
+			synchronized (this) {
+				if (stopped) {
+					throw new CancellationException();
+				}
+				runner = Thread.currentThread();
+			}
+			try {
+				filler.accept(buffer);
+				buffer.seal();
+				return buffer;
+			} finally {
+				synchronized (this) {
+					runner = null;
+				}
+				Thread.interrupted(); // not to leak an interrupt into the next task of a pooled thread
+			}
+		}
+
+		private synchronized void stop() {
+			stopped = true;
+			if (null != runner) {
+				runner.interrupt();
+			}
+		}
+	}
+}
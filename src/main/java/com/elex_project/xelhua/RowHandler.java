@@ -0,0 +1,30 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Callback for rows read by a streaming reader
+ *
+ * @author Elex
+ * @see XlsxReader
+ */
+@FunctionalInterface
+public interface RowHandler {
+
+	/**
+	 * Handle a row.
+	 * rows without any cell are skipped.
+	 *
+	 * @param row row, which is reused for the next row
+	 */
+	public void handle(@NotNull RowView row);
+}
@@ -0,0 +1,305 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+
+/**
+ * A row read by a streaming reader.
+ * The same instance is reused for every row of a sheet,
+ * so don't keep it after {@link RowHandler#handle(RowView)} returns, or keep a {@link #copy()}.
+ * Formula cells are reported with the type of their cached result.
+ *
+ * @author Elex
+ * @see XlsxReader
+ */
+public final class RowView {
+	private int rowNum = -1;
+	private int lastCellNum = -1;
+	private CellType[] types;
+	private double[] numbers;
+	private String[] strings;
+	private boolean[] dates;
+	private short[] formatIndexes;
+	private String[] formatStrings;
+	private final boolean date1904;
+
+	/**
+	 * @param date1904 true if dates of the workbook are serial numbers of the 1904 date system
+	 */
+	RowView(final boolean date1904) {
+		this(16, date1904);
+	}
+
+	private RowView(final int capacity, final boolean date1904) {
+		this.date1904 = date1904;
+		this.types = new CellType[capacity];
+		this.numbers = new double[capacity];
+		this.strings = new String[capacity];
+		this.dates = new boolean[capacity];
+		this.formatIndexes = new short[capacity];
+		this.formatStrings = new String[capacity];
+	}
+
+	/**
+	 * Clear the previous row and start a new one.
+	 *
+	 * @param rowNum row number
+	 */
+	void start(final int rowNum) {
+		if (lastCellNum > 0) {
+			Arrays.fill(types, 0, lastCellNum, null);
+			Arrays.fill(strings, 0, lastCellNum, null);
+			Arrays.fill(formatStrings, 0, lastCellNum, null);
+		}
+		this.rowNum = rowNum;
+		this.lastCellNum = -1;
+	}
+
+	void setString(final int colNum, @NotNull final String value) {
+		set(colNum, CellType.STRING);
+		strings[colNum] = value;
+	}
+
+	void setNumeric(final int colNum, final double value,
+	                final short formatIndex, @Nullable final String formatString, final boolean date) {
+		set(colNum, CellType.NUMERIC);
+		numbers[colNum] = value;
+		formatIndexes[colNum] = formatIndex;
+		formatStrings[colNum] = formatString;
+		dates[colNum] = date;
+	}
+
+	void setBoolean(final int colNum, final boolean value) {
+		set(colNum, CellType.BOOLEAN);
+		numbers[colNum] = value ? 1 : 0;
+	}
+
+	void setError(final int colNum, @NotNull final String value) {
+		set(colNum, CellType.ERROR);
+		strings[colNum] = value;
+	}
+
+	private void set(final int colNum, @NotNull final CellType type) {
+		if (colNum >= types.length) {
+			final int capacity = Math.max(colNum + 1, types.length * 2);
+			types = Arrays.copyOf(types, capacity);
+			numbers = Arrays.copyOf(numbers, capacity);
+			strings = Arrays.copyOf(strings, capacity);
+			dates = Arrays.copyOf(dates, capacity);
+			formatIndexes = Arrays.copyOf(formatIndexes, capacity);
+			formatStrings = Arrays.copyOf(formatStrings, capacity);
+		}
+		types[colNum] = type;
+		formatIndexes[colNum] = 0;
+		dates[colNum] = false;
+		if (colNum >= lastCellNum) {
+			lastCellNum = colNum + 1;
+		}
+	}
+
+	/**
+	 * Row number
+	 *
+	 * @return zero-based row number
+	 */
+	public int getRowNum() {
+		return rowNum;
+	}
+
+	/**
+	 * Index of the last cell plus one, like {@link org.apache.poi.ss.usermodel.Row#getLastCellNum()}
+	 *
+	 * @return last cell number, or -1 if the row has no cells
+	 */
+	public int getLastCellNum() {
+		return lastCellNum;
+	}
+
+	/**
+	 * Return a cell type.
+	 *
+	 * @param colNum column number
+	 * @return cell type, {@link CellType#BLANK} for a missing cell
+	 */
+	@NotNull
+	public CellType getCellType(final int colNum) {
+		if (colNum < 0 || colNum >= lastCellNum || null == types[colNum]) {
+			return CellType.BLANK;
+		}
+		return types[colNum];
+	}
+
+	/**
+	 * Is a cell missing or blank?
+	 *
+	 * @param colNum column number
+	 * @return true if blank
+	 */
+	public boolean isBlank(final int colNum) {
+		return getCellType(colNum) == CellType.BLANK;
+	}
+
+	/**
+	 * Read string value from a cell
+	 *
+	 * @param colNum column number
+	 * @return string, or an empty string for a blank cell
+	 * @throws IllegalStateException if cannot read a value as a string
+	 */
+	@NotNull
+	public String readString(final int colNum) throws IllegalStateException {
+		final CellType type = getCellType(colNum);
+		switch (type) {
+			case STRING:
+				return strings[colNum];
+			case BLANK:
+				return "";
+			default:
+				throw new IllegalStateException("Cannot get a STRING value from a " + type + " cell");
+		}
+	}
+
+	/**
+	 * Read numeric value as double from a cell
+	 *
+	 * @param colNum column number
+	 * @return double, or 0 for a blank cell
+	 * @throws IllegalStateException if can not read a value as a number
+	 */
+	public double readNumeric(final int colNum) throws IllegalStateException {
+		final CellType type = getCellType(colNum);
+		switch (type) {
+			case NUMERIC:
+				return numbers[colNum];
+			case BLANK:
+				return 0;
+			default:
+				throw new IllegalStateException("Cannot get a NUMERIC value from a " + type + " cell");
+		}
+	}
+
+	/**
+	 * Read boolean value from a cell
+	 *
+	 * @param colNum column number
+	 * @return boolean, or false for a blank cell
+	 * @throws IllegalStateException if can not read a value as a boolean
+	 */
+	public boolean readBoolean(final int colNum) throws IllegalStateException {
+		final CellType type = getCellType(colNum);
+		switch (type) {
+			case BOOLEAN:
+				return numbers[colNum] != 0;
+			case BLANK:
+				return false;
+			default:
+				throw new IllegalStateException("Cannot get a BOOLEAN value from a " + type + " cell");
+		}
+	}
+
+	/**
+	 * Is a cell a number formatted as a date?
+	 *
+	 * @param colNum column number
+	 * @return true if date formatted
+	 */
+	public boolean isDateFormatted(final int colNum) {
+		return getCellType(colNum) == CellType.NUMERIC && dates[colNum]
+				&& DateUtil.isValidExcelDate(numbers[colNum]);
+	}
+
+	/**
+	 * Read date time from a cell
+	 *
+	 * @param colNum column number
+	 * @return local date time at system default zone
+	 * @throws IllegalStateException if the cell is not formatted as a date
+	 */
+	@NotNull
+	public LocalDateTime readLocalDateTime(final int colNum) throws IllegalStateException {
+		if (isDateFormatted(colNum)) {
+			return DateUtil.getJavaDate(numbers[colNum], date1904).toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime();
+		} else {
+			throw new IllegalStateException("Cell is not formatted as a date.");
+		}
+	}
+
+	/**
+	 * Read date from a cell
+	 *
+	 * @param colNum column number
+	 * @return local date at system default zone
+	 * @throws IllegalStateException if the cell is not formatted as a date
+	 */
+	@NotNull
+	public LocalDate readLocalDate(final int colNum) throws IllegalStateException {
+		return readLocalDateTime(colNum).toLocalDate();
+	}
+
+	/**
+	 * Data format index of a numeric cell
+	 *
+	 * @param colNum column number
+	 * @return format index, 0 (General) for other cells
+	 */
+	public short getFormatIndex(final int colNum) {
+		return getCellType(colNum) == CellType.NUMERIC ? formatIndexes[colNum] : 0;
+	}
+
+	/**
+	 * Data format string of a numeric cell
+	 *
+	 * @param colNum column number
+	 * @return format string, or null
+	 */
+	@Nullable
+	public String getFormatString(final int colNum) {
+		return getCellType(colNum) == CellType.NUMERIC ? formatStrings[colNum] : null;
+	}
+
+	/**
+	 * Is the workbook in the 1904 date system?
+	 *
+	 * @return true if date serial numbers count from 1904-01-01
+	 */
+	boolean isDate1904() {
+		return date1904;
+	}
+
+	/**
+	 * Copy this row, to keep it after the handler returns.
+	 *
+	 * @return a detached copy
+	 */
+	@NotNull
+	public RowView copy() {
+		final RowView copy = new RowView(Math.max(lastCellNum, 1), date1904);
+		copy.rowNum = rowNum;
+		copy.lastCellNum = lastCellNum;
+		if (lastCellNum > 0) {
+			System.arraycopy(types, 0, copy.types, 0, lastCellNum);
+			System.arraycopy(numbers, 0, copy.numbers, 0, lastCellNum);
+			System.arraycopy(strings, 0, copy.strings, 0, lastCellNum);
+			System.arraycopy(dates, 0, copy.dates, 0, lastCellNum);
+			System.arraycopy(formatIndexes, 0, copy.formatIndexes, 0, lastCellNum);
+			System.arraycopy(formatStrings, 0, copy.formatStrings, 0, lastCellNum);
+		}
+		return copy;
+	}
+}
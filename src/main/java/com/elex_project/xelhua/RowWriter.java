@@ -0,0 +1,408 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.apache.poi.ss.usermodel.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Bulk row writer with typed columns.
+ * Columns are bound once, so each row is created once and each cell is written without a type check.
+ * <pre>{@code
+ * new RowWriter<Person>(sheet)
+ *         .string(Person::getName)
+ *         .numeric(Person::getAge)
+ *         .date(Person::getBirthday)
+ *         .writeRows(1, people);
+ * }</pre>
+ *
+ * @param <T> type of a row item
+ * @author Elex
+ */
+public final class RowWriter<T> {
+	static final String DATE_FORMAT = "yyyy-MM-dd";
+	static final String DATE_TIME_FORMAT = "yyyy-MM-dd HH:mm:ss";
+
+	private final Sheet sheet;
+	private final Workbook workbook;
+	private final List<Column<T>> columns = new ArrayList<>();
+
+	/**
+	 * Row writer
+	 *
+	 * @param sheet sheet
+	 */
+	public RowWriter(@NotNull final Sheet sheet) {
+		this.sheet = sheet;
+		this.workbook = sheet.getWorkbook();
+	}
+
+	/**
+	 * Sheet to be written
+	 *
+	 * @return sheet
+	 */
+	@NotNull
+	Sheet getSheet() {
+		return sheet;
+	}
+
+	@NotNull
+	private RowWriter<T> add(@NotNull final CellWriter<T> writer, @Nullable final String format) {
+		final Column<T> column = new Column<>(writer, format);
+		if (null != format) {
+			column.style = StyleRegistry.getCellStyle(workbook, workbook.getCellStyleAt(0), format);
+		}
+		columns.add(column);
+		return this;
+	}
+
+	/**
+	 * Add a string column
+	 *
+	 * @param getter string of an item, a cell is not created for null.
+	 * @return writer
+	 */
+	@NotNull
+	public RowWriter<T> string(@NotNull final Function<? super T, String> getter) {
+		return InlineStrings.isEnabled(workbook) ? inlineString(getter) : add((row, colNum, item) -> {
+			final String value = getter.apply(item);
+			if (null == value) return null;
+			final Cell cell = row.createCell(colNum);
+			cell.setCellValue(value);
+			return cell;
+		}, null);
+	}
+
+	/**
+	 * Add a string column, written as inline strings instead of the shared strings table.
+	 *
+	 * @param getter string of an item, a cell is not created for null.
+	 * @return writer
+	 * @see InlineStrings
+	 */
+	@NotNull
+	public RowWriter<T> inlineString(@NotNull final Function<? super T, String> getter) {
+		return add((row, colNum, item) -> {
+			final String value = getter.apply(item);
+			if (null == value) return null;
+			final Cell cell = row.createCell(colNum);
+			InlineStrings.write(cell, value);
+			return cell;
+		}, null);
+	}
+
+	/**
+	 * Add a numeric column
+	 *
+	 * @param getter number of an item
+	 * @return writer
+	 */
+	@NotNull
+	public RowWriter<T> numeric(@NotNull final ToDoubleFunction<? super T> getter) {
+		return add((row, colNum, item) -> {
+			final Cell cell = row.createCell(colNum);
+			cell.setCellValue(getter.applyAsDouble(item));
+			return cell;
+		}, null);
+	}
+
+	/**
+	 * Add a numeric column with nullable numbers
+	 *
+	 * @param getter number of an item, a cell is not created for null.
+	 * @return writer
+	 */
+	@NotNull
+	public RowWriter<T> number(@NotNull final Function<? super T, ? extends Number> getter) {
+		return add((row, colNum, item) -> {
+			final Number value = getter.apply(item);
+			if (null == value) return null;
+			final Cell cell = row.createCell(colNum);
+			cell.setCellValue(value.doubleValue());
+			return cell;
+		}, null);
+	}
+
+	/**
+	 * Add a boolean column
+	 *
+	 * @param getter boolean of an item
+	 * @return writer
+	 */
+	@NotNull
+	public RowWriter<T> bool(@NotNull final Predicate<? super T> getter) {
+		return add((row, colNum, item) -> {
+			final Cell cell = row.createCell(colNum);
+			cell.setCellValue(getter.test(item));
+			return cell;
+		}, null);
+	}
+
+	/**
+	 * Add a date column, with "yyyy-MM-dd" format.
+	 *
+	 * @param getter date of an item, a cell is not created for null.
+	 * @return writer
+	 */
+	@NotNull
+	public RowWriter<T> date(@NotNull final Function<? super T, LocalDate> getter) {
+		return date(getter, DATE_FORMAT);
+	}
+
+	/**
+	 * Add a date column
+	 *
+	 * @param getter date of an item, a cell is not created for null.
+	 * @param format date pattern
+	 * @return writer
+	 */
+	@NotNull
+	public RowWriter<T> date(@NotNull final Function<? super T, LocalDate> getter, @NotNull final String format) {
+		return add((row, colNum, item) -> {
+			final LocalDate value = getter.apply(item);
+			if (null == value) return null;
+			final Cell cell = row.createCell(colNum);
+			cell.setCellValue(value);
+			return cell;
+		}, format);
+	}
+
+	/**
+	 * Add a date time column, with "yyyy-MM-dd HH:mm:ss" format.
+	 *
+	 * @param getter date time of an item, a cell is not created for null.
+	 * @return writer
+	 */
+	@NotNull
+	public RowWriter<T> dateTime(@NotNull final Function<? super T, LocalDateTime> getter) {
+		return dateTime(getter, DATE_TIME_FORMAT);
+	}
+
+	/**
+	 * Add a date time column
+	 *
+	 * @param getter date time of an item, a cell is not created for null.
+	 * @param format date time pattern
+	 * @return writer
+	 */
+	@NotNull
+	public RowWriter<T> dateTime(@NotNull final Function<? super T, LocalDateTime> getter, @NotNull final String format) {
+		return add((row, colNum, item) -> {
+			final LocalDateTime value = getter.apply(item);
+			if (null == value) return null;
+			final Cell cell = row.createCell(colNum);
+			cell.setCellValue(value);
+			return cell;
+		}, format);
+	}
+
+	/**
+	 * Add an empty column
+	 *
+	 * @return writer
+	 */
+	@NotNull
+	public RowWriter<T> skip() {
+		return add((row, colNum, item) -> null, null);
+	}
+
+	/**
+	 * Set a style of the last added column.
+	 * a date column keeps its data format.
+	 *
+	 * @param cellStyle cell style
+	 * @return writer
+	 * @throws IllegalStateException if there's no column yet.
+	 */
+	@NotNull
+	public RowWriter<T> style(@NotNull final CellStyle cellStyle) throws IllegalStateException {
+		if (columns.isEmpty()) {
+			throw new IllegalStateException("Add a column first.");
+		}
+		final Column<T> column = columns.get(columns.size() - 1);
+		column.style = null == column.format
+				? cellStyle
+				: StyleRegistry.getCellStyle(workbook, cellStyle, column.format);
+		return this;
+	}
+
+	/**
+	 * Number of columns
+	 *
+	 * @return size
+	 */
+	public int size() {
+		return columns.size();
+	}
+
+	/**
+	 * Write an item into a row
+	 *
+	 * @param rowNum row number
+	 * @param item   item
+	 * @return the next row number
+	 */
+	public int write(final int rowNum, @NotNull final T item) {
+		final long start = XlsxMetrics.start();
+		final int cells = write(rowNum, item, ColumnWidths.of(sheet));
+		Formulas.changed(sheet.getWorkbook());
+		XlsxMetrics.cellsWritten(sheet, start, 1, cells);
+		return rowNum + 1;
+	}
+
+	private int write(final int rowNum, @NotNull final T item, @Nullable final ColumnWidths widths) {
+		final Row row = Xlsx.getRow(sheet, rowNum);
+		int cells = 0;
+		for (int colNum = 0; colNum < columns.size(); colNum++) {
+			final Column<T> column = columns.get(colNum);
+			final Cell cell = column.writer.write(row, colNum, item);
+			if (null == cell) continue;
+			cells++;
+			if (null != column.style) {
+				cell.setCellStyle(column.style);
+			}
+			if (null != widths) {
+				widths.observe(cell);
+			}
+		}
+		return cells;
+	}
+
+	/**
+	 * Write items, a row for each item.
+	 *
+	 * @param startRow first row number
+	 * @param items    items
+	 * @return the next row number
+	 */
+	public int writeRows(final int startRow, @NotNull final Iterable<? extends T> items) {
+		final long start = XlsxMetrics.start();
+		final ColumnWidths widths = ColumnWidths.of(sheet);
+		int rowNum = startRow;
+		long cells = 0;
+		for (final T item : items) {
+			cells += write(rowNum++, item, widths);
+		}
+		Formulas.changed(sheet.getWorkbook());
+		XlsxMetrics.cellsWritten(sheet, start, rowNum - startRow, cells);
+		return rowNum;
+	}
+
+	/**
+	 * Write arrays of values, choosing a cell type for each value.
+	 *
+	 * @param sheet    sheet
+	 * @param startRow first row number
+	 * @param rows     rows of values
+	 * @return the next row number
+	 * @see Xlsx#writeRows(Sheet, int, Iterable)
+	 */
+	static int writeObjects(@NotNull final Sheet sheet, final int startRow, @NotNull final Iterable<Object[]> rows) {
+		final Workbook workbook = sheet.getWorkbook();
+		final long start = XlsxMetrics.start();
+		final ColumnWidths widths = ColumnWidths.of(sheet);
+		final boolean inline = InlineStrings.isEnabled(workbook);
+		CellStyle dateStyle = null, dateTimeStyle = null;
+		int rowNum = startRow;
+		long cells = 0;
+		for (final Object[] values : rows) {
+			final Row row = Xlsx.getRow(sheet, rowNum++);
+			for (int colNum = 0; colNum < values.length; colNum++) {
+				final Object value = values[colNum];
+				if (null == value) continue;
+				final Cell cell = row.createCell(colNum);
+				cells++;
+				if (value instanceof String) {
+					writeString(cell, (String) value, inline);
+				} else if (value instanceof Number) {
+					cell.setCellValue(((Number) value).doubleValue());
+				} else if (value instanceof Boolean) {
+					cell.setCellValue((Boolean) value);
+				} else if (value instanceof LocalDate) {
+					if (null == dateStyle) {
+						dateStyle = StyleRegistry.getCellStyle(workbook, workbook.getCellStyleAt(0), DATE_FORMAT);
+					}
+					cell.setCellStyle(dateStyle);
+					cell.setCellValue((LocalDate) value);
+				} else if (value instanceof LocalDateTime || value instanceof Date || value instanceof Calendar) {
+					if (null == dateTimeStyle) {
+						dateTimeStyle = StyleRegistry.getCellStyle(workbook, workbook.getCellStyleAt(0), DATE_TIME_FORMAT);
+					}
+					cell.setCellStyle(dateTimeStyle);
+					if (value instanceof LocalDateTime) {
+						cell.setCellValue((LocalDateTime) value);
+					} else if (value instanceof Date) {
+						cell.setCellValue((Date) value);
+					} else {
+						cell.setCellValue((Calendar) value);
+					}
+				} else {
+					writeString(cell, value.toString(), inline);
+				}
+				if (null != widths) {
+					widths.observe(cell);
+				}
+			}
+		}
+		Formulas.changed(sheet.getWorkbook());
+		XlsxMetrics.cellsWritten(sheet, start, rowNum - startRow, cells);
+		return rowNum;
+	}
+
+	private static void writeString(@NotNull final Cell cell, @NotNull final String value, final boolean inline) {
+		if (inline) {
+			InlineStrings.write(cell, value);
+		} else {
+			cell.setCellValue(value);
+		}
+	}
+
+	/**
+	 * Writes a value of an item into a new cell
+	 *
+	 * @param <T> type of an item
+	 */
+	@FunctionalInterface
+	interface CellWriter<T> {
+		/**
+		 * @param row    row
+		 * @param colNum column number
+		 * @param item   item
+		 * @return a new cell, or null if there's no value
+		 */
+		@Nullable
+		Cell write(@NotNull Row row, int colNum, @NotNull T item);
+	}
+
+	private static final class Column<T> {
+		private final CellWriter<T> writer;
+		@Nullable
+		private final String format;
+		@Nullable
+		private CellStyle style;
+
+		private Column(@NotNull final CellWriter<T> writer, @Nullable final String format) {
+			this.writer = writer;
+			this.format = format;
+		}
+	}
+}
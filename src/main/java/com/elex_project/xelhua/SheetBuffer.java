@@ -0,0 +1,348 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Cells of a sheet, buffered without a workbook.
+ * A buffer is confined to a thread that fills it, so sheets can be filled concurrently,
+ * then they are written into a workbook by {@link ParallelWorkbookBuilder}.
+ * Strings and formats are kept in dictionaries local to the buffer.
+ *
+ * @author Elex
+ */
+public final class SheetBuffer {
+	private static final byte NUMERIC = 0, STRING = 1, BOOLEAN = 2;
+	private static final int MAX_ROWS = SpreadsheetVersion.EXCEL2007.getMaxRows();
+	private static final int MAX_COLUMNS = SpreadsheetVersion.EXCEL2007.getMaxColumns();
+	private static final int MAX_CELLS = 1 << 29;
+
+	private final String name;
+	private long[] keys = new long[1024];
+	private byte[] types = new byte[1024];
+	private double[] numbers = new double[1024];
+	private int[] formats = new int[1024];
+	private int size;
+
+	private final Map<String, Integer> stringCodes = new HashMap<>();
+	private final List<String> strings = new ArrayList<>();
+	private final List<String> formatStrings = new ArrayList<>();
+	private final Map<Integer, Integer> columnWidths = new HashMap<>();
+	private boolean autoWidth;
+
+	SheetBuffer(@NotNull final String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Name of the sheet
+	 *
+	 * @return name
+	 */
+	@NotNull
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Number of buffered cells
+	 *
+	 * @return size
+	 */
+	public int size() {
+		return size;
+	}
+
+	private void add(final int rowNum, final int colNum, final byte type, final double number, final int format) {
+		if (rowNum < 0 || rowNum >= MAX_ROWS || colNum < 0 || colNum >= MAX_COLUMNS) {
+			throw new IllegalArgumentException("Cell (" + rowNum + ", " + colNum + ") is out of range.");
+		}
+		if (size == MAX_CELLS) {
+			throw new IllegalStateException("Too many cells in a buffer.");
+		}
+		if (size == keys.length) {
+			final int capacity = size * 2;
+			keys = Arrays.copyOf(keys, capacity);
+			types = Arrays.copyOf(types, capacity);
+			numbers = Arrays.copyOf(numbers, capacity);
+			formats = Arrays.copyOf(formats, capacity);
+		}
+		// row and column first, then the order of writing, so a later write to the same cell wins.
+		keys[size] = ((long) rowNum << 43) | ((long) colNum << 29) | size;
+		types[size] = type;
+		numbers[size] = number;
+		formats[size] = format;
+		size++;
+	}
+
+	private int formatCode(@Nullable final String format) {
+		if (null == format) return -1;
+		int code = formatStrings.indexOf(format);
+		if (code < 0) {
+			code = formatStrings.size();
+			formatStrings.add(format);
+		}
+		return code;
+	}
+
+	/**
+	 * Write a string
+	 *
+	 * @param rowNum row number
+	 * @param colNum column number
+	 * @param value  string, a cell is not created for null.
+	 * @return buffer
+	 */
+	@NotNull
+	public SheetBuffer write(final int rowNum, final int colNum, @Nullable final String value) {
+		if (null == value) return this;
+		Integer code = stringCodes.get(value);
+		if (null == code) {
+			code = strings.size();
+			stringCodes.put(value, code);
+			strings.add(value);
+		}
+		add(rowNum, colNum, STRING, code, -1);
+		return this;
+	}
+
+	/**
+	 * Write a number
+	 *
+	 * @param rowNum row number
+	 * @param colNum column number
+	 * @param value  number
+	 * @return buffer
+	 */
+	@NotNull
+	public SheetBuffer write(final int rowNum, final int colNum, final double value) {
+		add(rowNum, colNum, NUMERIC, value, -1);
+		return this;
+	}
+
+	/**
+	 * Write a number with a data format
+	 *
+	 * @param rowNum row number
+	 * @param colNum column number
+	 * @param value  number
+	 * @param format format pattern
+	 * @return buffer
+	 */
+	@NotNull
+	public SheetBuffer write(final int rowNum, final int colNum, final double value, @NotNull final String format) {
+		add(rowNum, colNum, NUMERIC, value, formatCode(format));
+		return this;
+	}
+
+	/**
+	 * Write a boolean
+	 *
+	 * @param rowNum row number
+	 * @param colNum column number
+	 * @param value  boolean
+	 * @return buffer
+	 */
+	@NotNull
+	public SheetBuffer write(final int rowNum, final int colNum, final boolean value) {
+		add(rowNum, colNum, BOOLEAN, value ? 1 : 0, -1);
+		return this;
+	}
+
+	/**
+	 * Write a date, with "yyyy-MM-dd" format.
+	 *
+	 * @param rowNum row number
+	 * @param colNum column number
+	 * @param value  date, a cell is not created for null.
+	 * @return buffer
+	 */
+	@NotNull
+	public SheetBuffer write(final int rowNum, final int colNum, @Nullable final LocalDate value) {
+		return write(rowNum, colNum, value, RowWriter.DATE_FORMAT);
+	}
+
+	/**
+	 * Write a date
+	 *
+	 * @param rowNum row number
+	 * @param colNum column number
+	 * @param value  date, a cell is not created for null.
+	 * @param format date pattern
+	 * @return buffer
+	 */
+	@NotNull
+	public SheetBuffer write(final int rowNum, final int colNum, @Nullable final LocalDate value,
+	                         @NotNull final String format) {
+		if (null == value) return this;
+		return write(rowNum, colNum, DateUtil.getExcelDate(value.atStartOfDay()), format);
+	}
+
+	/**
+	 * Write a date time, with "yyyy-MM-dd HH:mm:ss" format.
+	 *
+	 * @param rowNum row number
+	 * @param colNum column number
+	 * @param value  date time, a cell is not created for null.
+	 * @return buffer
+	 */
+	@NotNull
+	public SheetBuffer write(final int rowNum, final int colNum, @Nullable final LocalDateTime value) {
+		return write(rowNum, colNum, value, RowWriter.DATE_TIME_FORMAT);
+	}
+
+	/**
+	 * Write a date time
+	 *
+	 * @param rowNum row number
+	 * @param colNum column number
+	 * @param value  date time, a cell is not created for null.
+	 * @param format date time pattern
+	 * @return buffer
+	 */
+	@NotNull
+	public SheetBuffer write(final int rowNum, final int colNum, @Nullable final LocalDateTime value,
+	                         @NotNull final String format) {
+		if (null == value) return this;
+		return write(rowNum, colNum, DateUtil.getExcelDate(value), format);
+	}
+
+	/**
+	 * Write values into a row, choosing a cell type for each value.
+	 * String, Number, Boolean, LocalDate and LocalDateTime are supported,
+	 * others are written as strings. a cell is not created for null.
+	 *
+	 * @param rowNum row number
+	 * @param values values from the first column
+	 * @return buffer
+	 */
+	@NotNull
+	public SheetBuffer writeRow(final int rowNum, @NotNull final Object... values) {
+		for (int colNum = 0; colNum < values.length; colNum++) {
+			final Object value = values[colNum];
+			if (null == value) continue;
+			if (value instanceof Number) {
+				write(rowNum, colNum, ((Number) value).doubleValue());
+			} else if (value instanceof Boolean) {
+				write(rowNum, colNum, (boolean) (Boolean) value);
+			} else if (value instanceof LocalDate) {
+				write(rowNum, colNum, (LocalDate) value);
+			} else if (value instanceof LocalDateTime) {
+				write(rowNum, colNum, (LocalDateTime) value);
+			} else {
+				write(rowNum, colNum, value.toString());
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Set a column width
+	 *
+	 * @param colNum column number
+	 * @param width  width in units of 1/256th of a character width
+	 * @return buffer
+	 */
+	@NotNull
+	public SheetBuffer setColumnWidth(final int colNum, final int width) {
+		columnWidths.put(colNum, width);
+		return this;
+	}
+
+	/**
+	 * Set estimated widths of all columns when the sheet is written.
+	 *
+	 * @return buffer
+	 * @see Xlsx#autoWidthEstimated(Sheet)
+	 */
+	@NotNull
+	public SheetBuffer autoWidth() {
+		this.autoWidth = true;
+		return this;
+	}
+
+	/**
+	 * Sort cells by rows and columns, on the thread which filled the buffer.
+	 */
+	void seal() {
+		Arrays.sort(keys, 0, size);
+	}
+
+	/**
+	 * Write cells into a sheet, in order of rows.
+	 * It should be called after {@link #seal()}.
+	 *
+	 * @param sheet sheet
+	 */
+	void writeTo(@NotNull final Sheet sheet) {
+		final long start = XlsxMetrics.start();
+		final Workbook workbook = sheet.getWorkbook();
+		final ColumnWidths widths = autoWidth ? new ColumnWidths() : null;
+		final boolean inline = InlineStrings.isEnabled(workbook);
+		int rows = 0, cells = 0;
+		final CellStyle[] styles = new CellStyle[formatStrings.size()];
+		Row row = null;
+		for (int i = 0; i < size; i++) {
+			final long key = keys[i];
+			final int rowNum = (int) (key >>> 43);
+			final int colNum = (int) (key >>> 29) & 0x3FFF;
+			final int index = (int) key & (MAX_CELLS - 1);
+			if (i + 1 < size && (keys[i + 1] >>> 29) == (key >>> 29)) continue; // overwritten later
+			if (null == row || row.getRowNum() != rowNum) {
+				row = Xlsx.getRow(sheet, rowNum);
+				rows++;
+			}
+			final Cell cell = row.createCell(colNum);
+			cells++;
+			switch (types[index]) {
+				case STRING:
+					if (inline) {
+						InlineStrings.write(cell, strings.get((int) numbers[index]));
+					} else {
+						cell.setCellValue(strings.get((int) numbers[index]));
+					}
+					break;
+				case BOOLEAN:
+					cell.setCellValue(numbers[index] != 0);
+					break;
+				default:
+					cell.setCellValue(numbers[index]);
+					final int format = formats[index];
+					if (format >= 0) {
+						if (null == styles[format]) {
+							styles[format] = StyleRegistry.getCellStyle(workbook,
+									workbook.getCellStyleAt(0), formatStrings.get(format));
+						}
+						cell.setCellStyle(styles[format]);
+					}
+					break;
+			}
+			if (null != widths) {
+				widths.observe(cell);
+			}
+		}
+		if (null != widths) {
+			widths.apply(sheet);
+		}
+		for (final Map.Entry<Integer, Integer> width : columnWidths.entrySet()) {
+			sheet.setColumnWidth(width.getKey(), width.getValue());
+		}
+		Formulas.changed(workbook);
+		XlsxMetrics.cellsWritten(sheet, start, rows, cells);
+	}
+}
@@ -0,0 +1,45 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import java.lang.annotation.*;
+
+/**
+ * Maps a field to a column of a sheet.
+ *
+ * @author Elex
+ * @see SheetMapper#of(Class)
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface SheetColumn {
+
+	/**
+	 * Column name in a header row
+	 *
+	 * @return name, or the field name if empty
+	 */
+	String value() default "";
+
+	/**
+	 * Column order, columns with the same order keep the order of the fields.
+	 *
+	 * @return order
+	 */
+	int order() default Integer.MAX_VALUE;
+
+	/**
+	 * Data format of a date or date time field
+	 *
+	 * @return date pattern, or a default pattern if empty
+	 */
+	String format() default "";
+}
@@ -0,0 +1,197 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * SAX handler of a worksheet part, which fills a {@link RowView} row by row.
+ *
+ * @author Elex
+ */
+final class SheetHandler extends DefaultHandler {
+	private final StringTable strings;
+	private final CellFormats formats;
+	@Nullable
+	private final AtomicBoolean stopped;
+	private final RowHandler handler;
+	private final RowView row;
+	private final StringBuilder text = new StringBuilder();
+
+	private int rowNum = -1, colNum = -1, style;
+	private String cellType;
+	private boolean hasValue, inInline, inPhonetic, capturing;
+
+	SheetHandler(@NotNull final StringTable strings, @NotNull final CellFormats formats,
+	             final boolean date1904, @NotNull final RowHandler handler) {
+		this(strings, formats, date1904, null, handler);
+	}
+
+	/**
+	 * @param stopped parsing stops at the next row once it's set, or null
+	 */
+	SheetHandler(@NotNull final StringTable strings, @NotNull final CellFormats formats,
+	             final boolean date1904, @Nullable final AtomicBoolean stopped,
+	             @NotNull final RowHandler handler) {
+		this.strings = strings;
+		this.formats = formats;
+		this.stopped = stopped;
+		this.handler = handler;
+		this.row = new RowView(date1904);
+	}
+
+	/**
+	 * Number rows from a row, for a part of a sheet whose rows have no reference
+	 *
+	 * @param rowNum row number of the next row
+	 */
+	void skipTo(final int rowNum) {
+		this.rowNum = rowNum - 1;
+	}
+
+	@Override
+	public void startElement(final String uri, final String localName, final String qName,
+	                         final Attributes attributes) throws SAXException {
+		switch (XmlParsers.localName(qName)) {
+			case "row":
+				if (null != stopped && stopped.get()) {
+					throw new SAXException("Stopped.");
+				}
+				final String r = attributes.getValue("r");
+				rowNum = null != r ? Integer.parseInt(r) - 1 : rowNum + 1;
+				colNum = -1;
+				row.start(rowNum);
+				break;
+			case "c":
+				final String ref = attributes.getValue("r");
+				colNum = null != ref ? columnOf(ref) : colNum + 1;
+				cellType = attributes.getValue("t");
+				final String s = attributes.getValue("s");
+				style = null != s ? Integer.parseInt(s) : 0;
+				text.setLength(0);
+				hasValue = false;
+				break;
+			case "v":
+				hasValue = true;
+				capturing = true;
+				break;
+			case "is":
+				hasValue = true;
+				inInline = true;
+				break;
+			case "rPh":
+				inPhonetic = true;
+				break;
+			case "t":
+				capturing = inInline && !inPhonetic;
+				break;
+			default:
+				break;
+		}
+	}
+
+	@Override
+	public void endElement(final String uri, final String localName, final String qName) {
+		switch (XmlParsers.localName(qName)) {
+			case "v":
+			case "t":
+				capturing = false;
+				break;
+			case "is":
+				inInline = false;
+				break;
+			case "rPh":
+				inPhonetic = false;
+				break;
+			case "c":
+				if (hasValue) {
+					setCell();
+				}
+				break;
+			case "row":
+				if (row.getLastCellNum() > 0) {
+					handler.handle(row);
+				}
+				break;
+			default:
+				break;
+		}
+	}
+
+	@Override
+	public void characters(final char[] ch, final int start, final int length) {
+		if (capturing) {
+			text.append(ch, start, length);
+		}
+	}
+
+	private void setCell() {
+		if (null == cellType || "n".equals(cellType)) {
+			if (text.length() == 0) return; // blank
+			row.setNumeric(colNum, Double.parseDouble(text.toString()),
+					formats.getFormatIndex(style), formats.getFormatString(style), formats.isDate(style));
+			return;
+		}
+		switch (cellType) {
+			case "s":
+				row.setString(colNum, strings.get(parseIndex(text)));
+				break;
+			case "b":
+				row.setBoolean(colNum, text.length() > 0 && text.charAt(0) == '1');
+				break;
+			case "e":
+				row.setError(colNum, text.toString());
+				break;
+			case "inlineStr":
+			case "str":
+			default:
+				row.setString(colNum, text.toString());
+				break;
+		}
+	}
+
+	/**
+	 * Zero-based column index of a cell reference such as "AB12"
+	 *
+	 * @param ref cell reference
+	 * @return column index
+	 */
+	static int columnOf(@NotNull final CharSequence ref) {
+		int col = 0;
+		for (int i = 0; i < ref.length(); i++) {
+			final char c = ref.charAt(i);
+			if (c >= 'A' && c <= 'Z') {
+				col = col * 26 + (c - 'A' + 1);
+			} else if (c >= 'a' && c <= 'z') {
+				col = col * 26 + (c - 'a' + 1);
+			} else if (c != '$') {
+				break;
+			}
+		}
+		return col - 1;
+	}
+
+	private static int parseIndex(@NotNull final CharSequence text) {
+		int value = 0;
+		for (int i = 0; i < text.length(); i++) {
+			final char c = text.charAt(i);
+			if (c >= '0' && c <= '9') {
+				value = value * 10 + (c - '0');
+			}
+		}
+		return value;
+	}
+}
@@ -0,0 +1,698 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.apache.poi.ss.usermodel.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * Maps objects to rows of a sheet, and back.
+ * Accessors are bound once as method handles or functions, so no reflection is done per cell.
+ * <pre>{@code
+ * class Person {
+ *     @SheetColumn("Name") String name;
+ *     @SheetColumn(value = "Birthday", format = "yyyy/MM/dd") LocalDate birthday;
+ * }
+ * SheetMapper<Person> mapper = SheetMapper.of(Person.class);
+ * mapper.write(sheet, people);
+ * List<Person> read = mapper.read(sheet);
+ * }</pre>
+ * A mapper is immutable, so it can be shared.
+ *
+ * @param <T> type of an item
+ * @author Elex
+ */
+public final class SheetMapper<T> {
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+	@Nullable
+	private final Supplier<T> factory;
+	private final List<Property<T>> properties;
+	private final Function<Workbook, CellStyle> headerStyle;
+
+	private SheetMapper(@Nullable final Supplier<T> factory, @NotNull final List<Property<T>> properties,
+	                    @NotNull final Function<Workbook, CellStyle> headerStyle) {
+		this.factory = factory;
+		this.properties = Collections.unmodifiableList(new ArrayList<>(properties));
+		this.headerStyle = headerStyle;
+	}
+
+	/**
+	 * Bold header style
+	 *
+	 * @param workbook workbook
+	 * @return shared cell style
+	 */
+	@NotNull
+	private static CellStyle boldHeader(@NotNull final Workbook workbook) {
+		return new CellStyleBuilder(workbook, true)
+				.font(new FontBuilder(workbook, true).bold().get())
+				.get();
+	}
+
+	/**
+	 * Mapper of fields with {@link SheetColumn},
+	 * or all instance fields if there's no annotated field.
+	 * String, numbers, boolean, LocalDate and LocalDateTime fields are supported.
+	 *
+	 * @param type class of an item, it needs a no-arg constructor to be read.
+	 * @param <T>  type of an item
+	 * @return mapper
+	 * @throws IllegalArgumentException if a field has an unsupported type
+	 */
+	@NotNull
+	public static <T> SheetMapper<T> of(@NotNull final Class<T> type) throws IllegalArgumentException {
+		final List<Field> fields = new ArrayList<>();
+		for (Class<?> c = type; null != c && c != Object.class; c = c.getSuperclass()) {
+			final List<Field> declared = new ArrayList<>();
+			for (final Field field : c.getDeclaredFields()) {
+				final int modifiers = field.getModifiers();
+				if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers) && !field.isSynthetic()) {
+					declared.add(field);
+				}
+			}
+			fields.addAll(0, declared);
+		}
+		final boolean annotated = fields.stream().anyMatch(f -> f.isAnnotationPresent(SheetColumn.class));
+		if (annotated) {
+			fields.removeIf(f -> !f.isAnnotationPresent(SheetColumn.class));
+			// stable sort keeps the order of fields
+			fields.sort(Comparator.comparingInt(f -> f.getAnnotation(SheetColumn.class).order()));
+		}
+
+		final List<Property<T>> properties = new ArrayList<>();
+		try {
+			for (final Field field : fields) {
+				final SheetColumn column = field.getAnnotation(SheetColumn.class);
+				final String name = null == column || column.value().isEmpty() ? field.getName() : column.value();
+				final String format = null == column || column.format().isEmpty() ? null : column.format();
+				properties.add(property(field, name, format));
+			}
+		} catch (IllegalAccessException e) {
+			throw new IllegalArgumentException(e);
+		}
+		return new SheetMapper<>(constructor(type), properties, SheetMapper::boldHeader);
+	}
+
+	/**
+	 * Builder of a mapper with functions
+	 *
+	 * @param factory creates an item to be read, or null for a write-only mapper.
+	 * @param <T>     type of an item
+	 * @return builder
+	 */
+	@NotNull
+	public static <T> Builder<T> builder(@Nullable final Supplier<T> factory) {
+		return new Builder<>(factory);
+	}
+
+	/**
+	 * Same mapper with another header style
+	 *
+	 * @param headerStyle gets a style of header cells for a workbook
+	 * @return a new mapper
+	 */
+	@NotNull
+	public SheetMapper<T> withHeaderStyle(@NotNull final Function<Workbook, CellStyle> headerStyle) {
+		return new SheetMapper<>(factory, properties, headerStyle);
+	}
+
+	/**
+	 * Column names
+	 *
+	 * @return names in order
+	 */
+	@NotNull
+	public List<String> getColumnNames() {
+		final List<String> names = new ArrayList<>(properties.size());
+		for (final Property<T> property : properties) {
+			names.add(property.name);
+		}
+		return names;
+	}
+
+	/**
+	 * Write a header row and items from the first row.
+	 *
+	 * @param sheet sheet, may be a streaming one.
+	 * @param items items
+	 * @return the next row number
+	 */
+	public int write(@NotNull final Sheet sheet, @NotNull final Iterable<? extends T> items) {
+		return write(sheet, 0, items);
+	}
+
+	/**
+	 * Write a header row and items
+	 *
+	 * @param sheet     sheet, may be a streaming one.
+	 * @param headerRow row number of a header row
+	 * @param items     items
+	 * @return the next row number
+	 */
+	public int write(@NotNull final Sheet sheet, final int headerRow, @NotNull final Iterable<? extends T> items) {
+		writeHeader(sheet, headerRow);
+		return newRowWriter(sheet).writeRows(headerRow + 1, items);
+	}
+
+	/**
+	 * Write a header row
+	 *
+	 * @param sheet  sheet
+	 * @param rowNum row number
+	 */
+	public void writeHeader(@NotNull final Sheet sheet, final int rowNum) {
+		final CellStyle cellStyle = headerStyle.apply(sheet.getWorkbook());
+		final Row row = Xlsx.getRow(sheet, rowNum);
+		for (int colNum = 0; colNum < properties.size(); colNum++) {
+			final Cell cell = row.createCell(colNum);
+			cell.setCellValue(properties.get(colNum).name);
+			cell.setCellStyle(cellStyle);
+		}
+	}
+
+	/**
+	 * Row writer of items, without a header row
+	 *
+	 * @param sheet sheet
+	 * @return row writer
+	 */
+	@NotNull
+	public RowWriter<T> newRowWriter(@NotNull final Sheet sheet) {
+		final RowWriter<T> writer = new RowWriter<>(sheet);
+		for (final Property<T> property : properties) {
+			property.bind(writer);
+		}
+		return writer;
+	}
+
+	/**
+	 * Read items below a header row in the first row.
+	 *
+	 * @param sheet sheet
+	 * @return items
+	 * @throws IllegalStateException if there's no header row, or the mapper has no factory
+	 */
+	@NotNull
+	public List<T> read(@NotNull final Sheet sheet) throws IllegalStateException {
+		final List<T> items = new ArrayList<>();
+		read(sheet, sheet.getFirstRowNum(), items::add);
+		return items;
+	}
+
+	/**
+	 * Read items below a header row
+	 *
+	 * @param sheet     sheet
+	 * @param headerRow row number of a header row
+	 * @param consumer  receives items
+	 * @throws IllegalStateException if there's no header row, or the mapper has no factory
+	 */
+	public void read(@NotNull final Sheet sheet, final int headerRow, @NotNull final Consumer<? super T> consumer)
+			throws IllegalStateException {
+		final Row header = sheet.getRow(headerRow);
+		if (null == header) {
+			throw new IllegalStateException("Couldn't find a header row.");
+		}
+		final int[] columns = columnsOf(new HeaderIndex(header, true, false));
+		final DataFormatter formatter = new DataFormatter();
+		for (int rowNum = headerRow + 1; rowNum <= sheet.getLastRowNum(); rowNum++) {
+			final Row row = sheet.getRow(rowNum);
+			if (null == row) continue;
+			final T item = newItem();
+			for (int i = 0; i < columns.length; i++) {
+				if (columns[i] < 0) continue;
+				final Cell cell = row.getCell(columns[i]);
+				if (null != cell) {
+					properties.get(i).read(item, cell, formatter);
+				}
+			}
+			consumer.accept(item);
+		}
+	}
+
+	/**
+	 * Read items with a streaming reader, below a header row in the first row.
+	 *
+	 * @param reader   reader
+	 * @param sheet    name of a sheet
+	 * @param consumer receives items
+	 * @throws IOException           if it can not be read
+	 * @throws IllegalStateException if there's no sheet, or the mapper has no factory
+	 */
+	public void read(@NotNull final XlsxReader reader, @NotNull final String sheet,
+	                 @NotNull final Consumer<? super T> consumer) throws IOException, IllegalStateException {
+		reader.read(sheet, newRowHandler(consumer));
+	}
+
+	/**
+	 * Row handler which takes the first row as a header row, and maps the other rows to items.
+	 *
+	 * @param consumer receives items
+	 * @return row handler
+	 * @throws IllegalStateException if the mapper has no factory
+	 */
+	@NotNull
+	public RowHandler newRowHandler(@NotNull final Consumer<? super T> consumer) throws IllegalStateException {
+		if (null == factory) {
+			throw new IllegalStateException("Couldn't create an item without a factory.");
+		}
+		final DataFormatter formatter = new DataFormatter();
+		return new RowHandler() {
+			private int[] columns;
+
+			@Override
+			public void handle(@NotNull final RowView row) {
+				if (null == columns) {
+					columns = columnsOf(new HeaderIndex(row, true, false));
+					return;
+				}
+				final T item = newItem();
+				for (int i = 0; i < columns.length; i++) {
+					if (columns[i] >= 0) {
+						properties.get(i).read(item, row, columns[i], formatter);
+					}
+				}
+				consumer.accept(item);
+			}
+		};
+	}
+
+	@NotNull
+	private int[] columnsOf(@NotNull final HeaderIndex headerIndex) {
+		final int[] columns = new int[properties.size()];
+		for (int i = 0; i < columns.length; i++) {
+			columns[i] = properties.get(i).isReadable() ? headerIndex.getColumn(properties.get(i).name) : -1;
+		}
+		return columns;
+	}
+
+	@NotNull
+	private T newItem() throws IllegalStateException {
+		if (null == factory) {
+			throw new IllegalStateException("Couldn't create an item without a factory.");
+		}
+		return factory.get();
+	}
+
+	@Nullable
+	private static <T> Supplier<T> constructor(@NotNull final Class<T> type) {
+		final MethodHandle handle;
+		try {
+			final Constructor<T> constructor = type.getDeclaredConstructor();
+			constructor.setAccessible(true);
+			handle = LOOKUP.unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+		} catch (NoSuchMethodException | IllegalAccessException | RuntimeException e) {
+			return null; // write only
+		}
+		return () -> {
+			try {
+				return type.cast(handle.invokeExact());
+			} catch (Throwable e) {
+				throw rethrow(e);
+			}
+		};
+	}
+
+	@NotNull
+	private static RuntimeException rethrow(@NotNull final Throwable e) {
+		if (e instanceof RuntimeException) return (RuntimeException) e;
+		if (e instanceof Error) throw (Error) e;
+		return new IllegalStateException(e);
+	}
+
+	@NotNull
+	private static <T> Property<T> property(@NotNull final Field field, @NotNull final String name,
+	                                        @Nullable final String format) throws IllegalAccessException {
+		field.setAccessible(true);
+		final Class<?> type = field.getType();
+		final MethodHandle get = LOOKUP.unreflectGetter(field);
+		final MethodHandle set = Modifier.isFinal(field.getModifiers()) ? null : LOOKUP.unreflectSetter(field);
+
+		final Property<T> property;
+		if (type.isPrimitive() && type != boolean.class && type != char.class) {
+			property = new Property<>(name, Kind.NUMERIC, null);
+			final MethodHandle getter = get.asType(MethodType.methodType(double.class, Object.class));
+			property.doubleGetter = item -> {
+				try {
+					return (double) getter.invokeExact((Object) item);
+				} catch (Throwable e) {
+					throw rethrow(e);
+				}
+			};
+			if (null != set) {
+				final MethodHandle setter = MethodHandles.explicitCastArguments(set,
+						MethodType.methodType(void.class, Object.class, double.class));
+				property.doubleSetter = (item, value) -> {
+					try {
+						setter.invokeExact((Object) item, value);
+					} catch (Throwable e) {
+						throw rethrow(e);
+					}
+				};
+			}
+			return property;
+		} else if (type == String.class) {
+			property = new Property<>(name, Kind.STRING, null);
+		} else if (Number.class.isAssignableFrom(type)) {
+			property = new Property<>(name, Kind.NUMERIC, null);
+		} else if (type == boolean.class || type == Boolean.class) {
+			property = new Property<>(name, Kind.BOOLEAN, null);
+		} else if (type == LocalDate.class) {
+			property = new Property<>(name, Kind.DATE, null == format ? RowWriter.DATE_FORMAT : format);
+		} else if (type == LocalDateTime.class) {
+			property = new Property<>(name, Kind.DATE_TIME, null == format ? RowWriter.DATE_TIME_FORMAT : format);
+		} else {
+			throw new IllegalArgumentException("Unsupported type of a field: " + field);
+		}
+
+		final MethodHandle getter = get.asType(MethodType.methodType(Object.class, Object.class));
+		property.getter = item -> {
+			try {
+				return (Object) getter.invokeExact((Object) item);
+			} catch (Throwable e) {
+				throw rethrow(e);
+			}
+		};
+		if (null != set) {
+			final MethodHandle setter = set.asType(MethodType.methodType(void.class, Object.class, Object.class));
+			property.setter = (item, value) -> {
+				try {
+					setter.invokeExact((Object) item, value);
+				} catch (Throwable e) {
+					throw rethrow(e);
+				}
+			};
+			if (property.kind == Kind.NUMERIC) {
+				final DoubleFunction<Object> boxer = boxer(type);
+				final BiConsumer<T, Object> objectSetter = property.setter;
+				property.doubleSetter = (item, value) -> objectSetter.accept(item, boxer.apply(value));
+			}
+		}
+		return property;
+	}
+
+	@NotNull
+	private static DoubleFunction<Object> boxer(@NotNull final Class<?> type) {
+		if (type == Integer.class) return value -> (int) value;
+		if (type == Long.class) return value -> (long) value;
+		if (type == Short.class) return value -> (short) value;
+		if (type == Byte.class) return value -> (byte) value;
+		if (type == Float.class) return value -> (float) value;
+		if (type == BigDecimal.class) return BigDecimal::valueOf;
+		if (type == BigInteger.class) return value -> BigDecimal.valueOf(value).toBigInteger();
+		if (type.isAssignableFrom(Double.class)) return value -> value;
+		throw new IllegalArgumentException("Unsupported type of a number: " + type);
+	}
+
+	private enum Kind {
+		STRING, NUMERIC, BOOLEAN, DATE, DATE_TIME
+	}
+
+	/**
+	 * A column bound to accessors of an item
+	 */
+	private static final class Property<T> {
+		private final String name;
+		private final Kind kind;
+		@Nullable
+		private final String format;
+		@Nullable
+		private Function<T, Object> getter;
+		@Nullable
+		private ToDoubleFunction<T> doubleGetter;
+		@Nullable
+		private BiConsumer<T, Object> setter;
+		@Nullable
+		private ObjDoubleConsumer<T> doubleSetter;
+
+		private Property(@NotNull final String name, @NotNull final Kind kind, @Nullable final String format) {
+			this.name = name;
+			this.kind = kind;
+			this.format = format;
+		}
+
+		private boolean isReadable() {
+			return null != setter || null != doubleSetter;
+		}
+
+		private void bind(@NotNull final RowWriter<T> writer) {
+			final Function<T, Object> getter = this.getter;
+			switch (kind) {
+				case STRING:
+					writer.string(item -> (String) getter.apply(item));
+					break;
+				case NUMERIC:
+					if (null != doubleGetter) {
+						writer.numeric(doubleGetter);
+					} else {
+						writer.number(item -> (Number) getter.apply(item));
+					}
+					break;
+				case BOOLEAN:
+					writer.bool(item -> Boolean.TRUE.equals(getter.apply(item)));
+					break;
+				case DATE:
+					writer.date(item -> (LocalDate) getter.apply(item), format);
+					break;
+				case DATE_TIME:
+					writer.dateTime(item -> (LocalDateTime) getter.apply(item), format);
+					break;
+			}
+		}
+
+		private void read(@NotNull final T item, @NotNull final Cell cell, @NotNull final DataFormatter formatter) {
+			final CellType type = cell.getCellType() == CellType.FORMULA
+					? cell.getCachedFormulaResultType()
+					: cell.getCellType();
+			switch (kind) {
+				case STRING:
+					if (type == CellType.STRING) {
+						setter.accept(item, cell.getStringCellValue());
+					} else if (type == CellType.NUMERIC) {
+						// a formula cell is formatted by its cached result, not its formula
+						final CellStyle style = cell.getCellStyle();
+						setter.accept(item, formatter.formatRawCellContents(cell.getNumericCellValue(),
+								style.getDataFormat(), style.getDataFormatString()));
+					} else if (type == CellType.BOOLEAN) {
+						setter.accept(item, cell.getBooleanCellValue() ? "TRUE" : "FALSE");
+					} else if (type == CellType.ERROR) {
+						setter.accept(item, FormulaError.forInt(cell.getErrorCellValue()).getString());
+					}
+					break;
+				case NUMERIC:
+					if (type == CellType.NUMERIC) {
+						doubleSetter.accept(item, cell.getNumericCellValue());
+					}
+					break;
+				case BOOLEAN:
+					if (type == CellType.BOOLEAN) {
+						setter.accept(item, cell.getBooleanCellValue());
+					}
+					break;
+				case DATE:
+					if (type == CellType.NUMERIC && DateUtil.isCellDateFormatted(cell)) {
+						setter.accept(item, Xlsx.readLocalDate(cell));
+					}
+					break;
+				case DATE_TIME:
+					if (type == CellType.NUMERIC && DateUtil.isCellDateFormatted(cell)) {
+						setter.accept(item, Xlsx.readLocalDateTime(cell));
+					}
+					break;
+			}
+		}
+
+		private void read(@NotNull final T item, @NotNull final RowView row, final int colNum,
+		                  @NotNull final DataFormatter formatter) {
+			final CellType type = row.getCellType(colNum);
+			switch (kind) {
+				case STRING:
+					if (type == CellType.STRING) {
+						setter.accept(item, row.readString(colNum));
+					} else if (type == CellType.NUMERIC) {
+						final String format = row.getFormatString(colNum);
+						setter.accept(item, formatter.formatRawCellContents(row.readNumeric(colNum),
+								row.getFormatIndex(colNum), null == format ? "General" : format));
+					} else if (type == CellType.BOOLEAN) {
+						setter.accept(item, row.readBoolean(colNum) ? "TRUE" : "FALSE");
+					}
+					break;
+				case NUMERIC:
+					if (type == CellType.NUMERIC) {
+						doubleSetter.accept(item, row.readNumeric(colNum));
+					}
+					break;
+				case BOOLEAN:
+					if (type == CellType.BOOLEAN) {
+						setter.accept(item, row.readBoolean(colNum));
+					}
+					break;
+				case DATE:
+					if (row.isDateFormatted(colNum)) {
+						setter.accept(item, row.readLocalDate(colNum));
+					}
+					break;
+				case DATE_TIME:
+					if (row.isDateFormatted(colNum)) {
+						setter.accept(item, row.readLocalDateTime(colNum));
+					}
+					break;
+			}
+		}
+	}
+
+	/**
+	 * Builder of a mapper with functions.
+	 * a setter may be null for a write-only column.
+	 *
+	 * @param <T> type of an item
+	 */
+	public static final class Builder<T> {
+		@Nullable
+		private final Supplier<T> factory;
+		private final List<Property<T>> properties = new ArrayList<>();
+		private Function<Workbook, CellStyle> headerStyle = SheetMapper::boldHeader;
+
+		private Builder(@Nullable final Supplier<T> factory) {
+			this.factory = factory;
+		}
+
+		/**
+		 * string column
+		 *
+		 * @param name   column name
+		 * @param getter getter
+		 * @param setter setter, or null
+		 * @return builder
+		 */
+		@NotNull
+		public Builder<T> string(@NotNull final String name, @NotNull final Function<T, String> getter,
+		                         @Nullable final BiConsumer<T, String> setter) {
+			final Property<T> property = new Property<>(name, Kind.STRING, null);
+			property.getter = getter::apply;
+			property.setter = null == setter ? null : (item, value) -> setter.accept(item, (String) value);
+			properties.add(property);
+			return this;
+		}
+
+		/**
+		 * numeric column
+		 *
+		 * @param name   column name
+		 * @param getter getter
+		 * @param setter setter, or null
+		 * @return builder
+		 */
+		@NotNull
+		public Builder<T> numeric(@NotNull final String name, @NotNull final ToDoubleFunction<T> getter,
+		                          @Nullable final ObjDoubleConsumer<T> setter) {
+			final Property<T> property = new Property<>(name, Kind.NUMERIC, null);
+			property.doubleGetter = getter;
+			property.doubleSetter = setter;
+			properties.add(property);
+			return this;
+		}
+
+		/**
+		 * boolean column
+		 *
+		 * @param name   column name
+		 * @param getter getter
+		 * @param setter setter, or null
+		 * @return builder
+		 */
+		@NotNull
+		public Builder<T> bool(@NotNull final String name, @NotNull final Predicate<T> getter,
+		                       @Nullable final BiConsumer<T, Boolean> setter) {
+			final Property<T> property = new Property<>(name, Kind.BOOLEAN, null);
+			property.getter = getter::test;
+			property.setter = null == setter ? null : (item, value) -> setter.accept(item, (Boolean) value);
+			properties.add(property);
+			return this;
+		}
+
+		/**
+		 * date column
+		 *
+		 * @param name   column name
+		 * @param format date pattern
+		 * @param getter getter
+		 * @param setter setter, or null
+		 * @return builder
+		 */
+		@NotNull
+		public Builder<T> date(@NotNull final String name, @NotNull final String format,
+		                       @NotNull final Function<T, LocalDate> getter, @Nullable final BiConsumer<T, LocalDate> setter) {
+			final Property<T> property = new Property<>(name, Kind.DATE, format);
+			property.getter = getter::apply;
+			property.setter = null == setter ? null : (item, value) -> setter.accept(item, (LocalDate) value);
+			properties.add(property);
+			return this;
+		}
+
+		/**
+		 * date time column
+		 *
+		 * @param name   column name
+		 * @param format date time pattern
+		 * @param getter getter
+		 * @param setter setter, or null
+		 * @return builder
+		 */
+		@NotNull
+		public Builder<T> dateTime(@NotNull final String name, @NotNull final String format,
+		                           @NotNull final Function<T, LocalDateTime> getter,
+		                           @Nullable final BiConsumer<T, LocalDateTime> setter) {
+			final Property<T> property = new Property<>(name, Kind.DATE_TIME, format);
+			property.getter = getter::apply;
+			property.setter = null == setter ? null : (item, value) -> setter.accept(item, (LocalDateTime) value);
+			properties.add(property);
+			return this;
+		}
+
+		/**
+		 * style of header cells
+		 *
+		 * @param headerStyle gets a style of header cells for a workbook
+		 * @return builder
+		 */
+		@NotNull
+		public Builder<T> headerStyle(@NotNull final Function<Workbook, CellStyle> headerStyle) {
+			this.headerStyle = headerStyle;
+			return this;
+		}
+
+		/**
+		 * finish building a mapper
+		 *
+		 * @return mapper
+		 */
+		@NotNull
+		public SheetMapper<T> build() {
+			return new SheetMapper<>(factory, properties, headerStyle);
+		}
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.jetbrains.annotations.NotNull;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Read-only shared strings of a xlsx package
+ *
+ * @author Elex
+ */
+interface StringTable {
+
+	/**
+	 * Get a shared string
+	 *
+	 * @param index index
+	 * @return string
+	 */
+	@NotNull
+	public String get(int index);
+
+	/**
+	 * Number of unique strings
+	 *
+	 * @return size
+	 */
+	public int size();
+
+	/**
+	 * Release resources of the table, if any
+	 */
+	public default void close() {
+	}
+
+	/**
+	 * Read shared strings into the heap
+	 *
+	 * @param pkg package
+	 * @return string table, may be empty
+	 * @throws IOException if it can not be read
+	 */
+	@NotNull
+	public static StringTable read(@NotNull final OPCPackage pkg) throws IOException {
+		final List<String> list = new ArrayList<>();
+		parse(pkg, list::add);
+		return new StringTable() {
+			@NotNull
+			@Override
+			public String get(final int index) {
+				return list.get(index);
+			}
+
+			@Override
+			public int size() {
+				return list.size();
+			}
+		};
+	}
+
+	/**
+	 * Walk through the shared strings part
+	 *
+	 * @param pkg  package
+	 * @param sink receives strings in order
+	 * @throws IOException if it can not be read
+	 */
+	static void parse(@NotNull final OPCPackage pkg, @NotNull final Consumer<String> sink) throws IOException {
+		final List<PackagePart> parts = pkg.getPartsByContentType(XSSFRelation.SHARED_STRINGS.getContentType());
+		if (parts.isEmpty()) return;
+		try (InputStream inputStream = parts.get(0).getInputStream()) {
+			XmlParsers.parse(inputStream, new Handler(sink));
+		}
+	}
+
+	/**
+	 * {@code <si>} items, without phonetic runs.
+	 */
+	final class Handler extends DefaultHandler {
+		private final Consumer<String> sink;
+		private final StringBuilder text = new StringBuilder();
+		private boolean inItem, inPhonetic, capturing;
+
+		Handler(@NotNull final Consumer<String> sink) {
+			this.sink = sink;
+		}
+
+		@Override
+		public void startElement(final String uri, final String localName, final String qName,
+		                         final Attributes attributes) {
+			switch (XmlParsers.localName(qName)) {
+				case "si":
+					inItem = true;
+					text.setLength(0);
+					break;
+				case "rPh":
+					inPhonetic = true;
+					break;
+				case "t":
+					capturing = inItem && !inPhonetic;
+					break;
+				default:
+					break;
+			}
+		}
+
+		@Override
+		public void endElement(final String uri, final String localName, final String qName) {
+			switch (XmlParsers.localName(qName)) {
+				case "si":
+					inItem = false;
+					sink.accept(text.toString());
+					break;
+				case "rPh":
+					inPhonetic = false;
+					break;
+				case "t":
+					capturing = false;
+					break;
+				default:
+					break;
+			}
+		}
+
+		@Override
+		public void characters(final char[] ch, final int start, final int length) {
+			if (capturing) {
+				text.append(ch, start, length);
+			}
+		}
+	}
+}
@@ -0,0 +1,153 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Registry of cell styles created by this library, per workbook.
+ * A workbook can hold about 64k styles only, so the same style should not be created twice.
+ * Only indexes are kept, so a registry never keeps its workbook alive.
+ *
+ * @author Elex
+ */
+public final class StyleRegistry {
+	private static final Map<Workbook, StyleRegistry> REGISTRIES = new WeakHashMap<>();
+
+	private final Map<String, Short> dataFormats = new HashMap<>();
+	private final Map<String, Map<Integer, Integer>> dataFormatStyles = new HashMap<>();
+	private final Map<Map<String, Object>, Integer> cellStyles = new HashMap<>();
+	private final Map<Map<String, Object>, Integer> fonts = new HashMap<>();
+
+	private StyleRegistry() {
+	}
+
+	/**
+	 * Registry of a workbook
+	 *
+	 * @param workbook workbook
+	 * @return registry
+	 */
+	@NotNull
+	static StyleRegistry of(@NotNull final Workbook workbook) {
+		synchronized (REGISTRIES) {
+			return REGISTRIES.computeIfAbsent(workbook, k -> new StyleRegistry());
+		}
+	}
+
+	/**
+	 * Get a data format index, or create new one.
+	 *
+	 * @param workbook workbook
+	 * @param format   format pattern
+	 * @return data format index
+	 */
+	public static short getDataFormat(@NotNull final Workbook workbook, @NotNull final String format) {
+		final StyleRegistry registry = of(workbook);
+		synchronized (registry) {
+			return registry.dataFormats.computeIfAbsent(format,
+					k -> workbook.getCreationHelper().createDataFormat().getFormat(k));
+		}
+	}
+
+	/**
+	 * Get a cell style with a data format, or create new one.
+	 * The style is a copy of a base style, with only the data format changed.
+	 *
+	 * @param workbook workbook
+	 * @param base     base style, or null for a default style
+	 * @param format   format pattern
+	 * @return cell style shared by cells with the same base style and format
+	 */
+	@NotNull
+	public static CellStyle getCellStyle(@NotNull final Workbook workbook, @Nullable final CellStyle base,
+	                                     @NotNull final String format) {
+		final short dataFormat = getDataFormat(workbook, format);
+		if (null != base && base.getDataFormat() == dataFormat) {
+			return base;
+		}
+		final int baseIndex = null == base ? -1 : Short.toUnsignedInt(base.getIndex());
+		final StyleRegistry registry = of(workbook);
+		synchronized (registry) {
+			final Map<Integer, Integer> styles = registry.dataFormatStyles
+					.computeIfAbsent(format, k -> new HashMap<>());
+			final Integer index = styles.get(baseIndex);
+			if (null != index) {
+				return workbook.getCellStyleAt(index);
+			}
+			final CellStyle cellStyle = workbook.createCellStyle();
+			if (null != base) {
+				cellStyle.cloneStyleFrom(base);
+			}
+			cellStyle.setDataFormat(dataFormat);
+			styles.put(baseIndex, Short.toUnsignedInt(cellStyle.getIndex()));
+			return cellStyle;
+		}
+	}
+
+	/**
+	 * Get a cell style with the same attributes, or create new one.
+	 *
+	 * @param workbook   workbook
+	 * @param attributes attributes of a style
+	 * @param init       applies the attributes to a new style
+	 * @return cell style
+	 * @see CellStyleBuilder#CellStyleBuilder(Workbook, boolean)
+	 */
+	@NotNull
+	static CellStyle internCellStyle(@NotNull final Workbook workbook, @NotNull final Map<String, Object> attributes,
+	                                 @NotNull final Consumer<CellStyle> init) {
+		final StyleRegistry registry = of(workbook);
+		synchronized (registry) {
+			final Integer index = registry.cellStyles.get(attributes);
+			if (null != index) {
+				return workbook.getCellStyleAt(index);
+			}
+			final CellStyle cellStyle = workbook.createCellStyle();
+			init.accept(cellStyle);
+			registry.cellStyles.put(new HashMap<>(attributes), Short.toUnsignedInt(cellStyle.getIndex()));
+			return cellStyle;
+		}
+	}
+
+	/**
+	 * Get a font with the same attributes, or create new one.
+	 *
+	 * @param workbook   workbook
+	 * @param attributes attributes of a font
+	 * @param init       applies the attributes to a new font
+	 * @return font
+	 * @see FontBuilder#FontBuilder(Workbook, boolean)
+	 */
+	@NotNull
+	static Font internFont(@NotNull final Workbook workbook, @NotNull final Map<String, Object> attributes,
+	                       @NotNull final Consumer<Font> init) {
+		final StyleRegistry registry = of(workbook);
+		synchronized (registry) {
+			final Integer index = registry.fonts.get(attributes);
+			if (null != index) {
+				return workbook.getFontAt(index);
+			}
+			final Font font = workbook.createFont();
+			init.accept(font);
+			registry.fonts.put(new HashMap<>(attributes), font.getIndexAsInt());
+			return font;
+		}
+	}
+}
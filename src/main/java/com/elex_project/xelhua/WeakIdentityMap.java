@@ -0,0 +1,147 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Thread-safe map with weakly referenced keys, which are compared by identity.
+ * Lookups take no lock, so it's cheap to ask for a key which is not there.
+ * An entry is dropped after its key is collected.
+ *
+ * @param <K> type of keys
+ * @param <V> type of values
+ * @author Elex
+ */
+final class WeakIdentityMap<K, V> {
+	private final ConcurrentMap<Object, V> map = new ConcurrentHashMap<>();
+	private final ReferenceQueue<K> queue = new ReferenceQueue<>();
+
+	/**
+	 * Get a value
+	 *
+	 * @param key key
+	 * @return value, or null if not mapped
+	 */
+	@Nullable
+	V get(@NotNull final K key) {
+		expunge();
+		return map.isEmpty() ? null : map.get(new Lookup(key));
+	}
+
+	/**
+	 * Get a value, or put a new one
+	 *
+	 * @param key      key
+	 * @param function creates a value for the key
+	 * @return value
+	 */
+	@NotNull
+	V computeIfAbsent(@NotNull final K key, @NotNull final Function<? super K, ? extends V> function) {
+		expunge();
+		final V value = map.get(new Lookup(key));
+		if (null != value) return value;
+		return map.computeIfAbsent(new WeakKey<>(key, queue), k -> function.apply(key));
+	}
+
+	/**
+	 * Put a value
+	 *
+	 * @param key   key
+	 * @param value value
+	 */
+	void put(@NotNull final K key, @NotNull final V value) {
+		expunge();
+		map.put(new WeakKey<>(key, queue), value);
+	}
+
+	/**
+	 * Remove a value
+	 *
+	 * @param key key
+	 */
+	void remove(@NotNull final K key) {
+		expunge();
+		map.remove(new Lookup(key));
+	}
+
+	/**
+	 * Is nothing mapped?
+	 *
+	 * @return true if empty
+	 */
+	boolean isEmpty() {
+		expunge();
+		return map.isEmpty();
+	}
+
+	private void expunge() {
+		Reference<? extends K> reference;
+		while (null != (reference = queue.poll())) {
+			map.remove(reference);
+		}
+	}
+
+	/**
+	 * Key of an entry
+	 */
+	private static final class WeakKey<K> extends WeakReference<K> {
+		private final int hash;
+
+		private WeakKey(@NotNull final K key, @NotNull final ReferenceQueue<K> queue) {
+			super(key, queue);
+			this.hash = System.identityHashCode(key);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			if (this == o) return true;
+			if (o instanceof Lookup) return o.equals(this);
+			if (!(o instanceof WeakKey)) return false;
+			final Object referent = get();
+			return null != referent && referent == ((WeakKey<?>) o).get();
+		}
+	}
+
+	/**
+	 * Strong key to find an entry
+	 */
+	private static final class Lookup {
+		private final Object key;
+
+		private Lookup(@NotNull final Object key) {
+			this.key = key;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(key);
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			return o instanceof WeakKey ? key == ((WeakKey<?>) o).get()
+					: o instanceof Lookup && key == ((Lookup) o).key;
+		}
+	}
+}
@@ -0,0 +1,209 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Workbooks and readers of a unit of work, such as a request, which are closed together.
+ * Temp files of streaming workbooks are deleted and opened files are released,
+ * even if the work fails in the middle.
+ * <pre>{@code
+ * try (WorkbookSession session = new WorkbookSession()) {
+ *     SXSSFWorkbook workbook = session.createStreamingWorkbook();
+ *     ...
+ *     writeOut(workbook, outputStream);
+ * }
+ * }</pre>
+ * Styles, fonts and data formats shared by requests are better built once into a {@link WorkbookTemplate},
+ * and workbooks of the template are created with {@link #newWorkbook(WorkbookTemplate)}.
+ *
+ * @author Elex
+ */
+public final class WorkbookSession implements Closeable {
+	private final Deque<Closeable> resources = new ArrayDeque<>();
+	private boolean closed = false;
+
+	/**
+	 * New session
+	 */
+	public WorkbookSession() {
+	}
+
+	/**
+	 * Close a resource with the session
+	 *
+	 * @param resource workbook, reader or any other resource
+	 * @param <T>      type of the resource
+	 * @return the resource
+	 * @throws IllegalStateException if the session is closed, after the resource is closed.
+	 */
+	@NotNull
+	public <T extends Closeable> T register(@NotNull final T resource) throws IllegalStateException {
+		synchronized (this) {
+			if (!closed) {
+				resources.push(resource);
+				return resource;
+			}
+		}
+		final IllegalStateException exception = new IllegalStateException("Session is already closed.");
+		try {
+			close(resource);
+		} catch (IOException | RuntimeException e) {
+			exception.addSuppressed(e);
+		}
+		throw exception;
+	}
+
+	/**
+	 * Create a new workbook
+	 *
+	 * @return xssf workbook
+	 * @see Xlsx#createWorkbook()
+	 */
+	@NotNull
+	public Workbook createWorkbook() {
+		return register(Xlsx.createWorkbook());
+	}
+
+	/**
+	 * Create a new streaming workbook with a default window size
+	 *
+	 * @return sxssf workbook
+	 * @see Xlsx#createStreamingWorkbook()
+	 */
+	@NotNull
+	public SXSSFWorkbook createStreamingWorkbook() {
+		return register(Xlsx.createStreamingWorkbook());
+	}
+
+	/**
+	 * Create a new streaming workbook
+	 *
+	 * @param windowSize number of rows kept in memory, or -1 for unlimited
+	 * @param options    options
+	 * @return sxssf workbook
+	 * @see Xlsx#createStreamingWorkbook(int, WriteOptions)
+	 */
+	@NotNull
+	public SXSSFWorkbook createStreamingWorkbook(final int windowSize, @NotNull final WriteOptions options) {
+		return register(Xlsx.createStreamingWorkbook(windowSize, options));
+	}
+
+	/**
+	 * Open a Excel file
+	 *
+	 * @param file a file with a extension .xls or .xlsx
+	 * @param readOnly open a xlsx file read-only?
+	 * @return workbook
+	 * @throws IOException if it can't be read from a file
+	 * @see Xlsx#getWorkbook(File, boolean)
+	 */
+	@NotNull
+	public Workbook getWorkbook(@NotNull final File file, final boolean readOnly) throws IOException {
+		return register(Xlsx.getWorkbook(file, readOnly));
+	}
+
+	/**
+	 * Create a new workbook from a template
+	 *
+	 * @param template template
+	 * @return xssf workbook
+	 * @throws IOException if the template can not be parsed
+	 */
+	@NotNull
+	public XSSFWorkbook newWorkbook(@NotNull final WorkbookTemplate template) throws IOException {
+		return register(template.newWorkbook());
+	}
+
+	/**
+	 * Create a new streaming workbook from a template
+	 *
+	 * @param template   template
+	 * @param windowSize number of rows kept in memory
+	 * @return sxssf workbook
+	 * @throws IOException if the template can not be parsed
+	 */
+	@NotNull
+	public SXSSFWorkbook newStreamingWorkbook(@NotNull final WorkbookTemplate template, final int windowSize)
+			throws IOException {
+		return register(template.newStreamingWorkbook(windowSize));
+	}
+
+	/**
+	 * Open a xlsx file with a streaming reader
+	 *
+	 * @param file file
+	 * @return reader
+	 * @throws IOException if it can't be read from a file
+	 */
+	@NotNull
+	public XlsxReader openReader(@NotNull final File file) throws IOException {
+		return register(XlsxReader.open(file));
+	}
+
+	/**
+	 * Number of resources to be closed
+	 *
+	 * @return number of resources
+	 */
+	public synchronized int size() {
+		return resources.size();
+	}
+
+	/**
+	 * Close all resources, in reverse order of registration.
+	 * Every resource is closed even if some of them fail.
+	 *
+	 * @throws IOException the first failure, with the others suppressed.
+	 */
+	@Override
+	public void close() throws IOException {
+		final Deque<Closeable> toClose;
+		synchronized (this) {
+			if (closed) return;
+			closed = true;
+			toClose = new ArrayDeque<>(resources);
+			resources.clear();
+		}
+		IOException failure = null;
+		for (final Closeable resource : toClose) {
+			try {
+				close(resource);
+			} catch (IOException | RuntimeException e) {
+				if (null == failure) {
+					failure = e instanceof IOException ? (IOException) e : new IOException(e);
+				} else {
+					failure.addSuppressed(e);
+				}
+			}
+		}
+		if (null != failure) {
+			throw failure;
+		}
+	}
+
+	private static void close(@NotNull final Closeable resource) throws IOException {
+		if (resource instanceof Workbook) {
+			Xlsx.close((Workbook) resource);
+		} else {
+			resource.close();
+		}
+	}
+}
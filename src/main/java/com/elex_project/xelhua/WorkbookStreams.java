@@ -0,0 +1,355 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.apache.commons.compress.archivers.zip.Zip64Mode;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Streams for reading and writing out workbooks.
+ *
+ * @author Elex
+ */
+final class WorkbookStreams {
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private WorkbookStreams() {
+	}
+
+	/**
+	 * Writes something into an output stream
+	 */
+	@FunctionalInterface
+	interface Producer {
+		void write(@NotNull OutputStream outputStream) throws IOException;
+	}
+
+	/**
+	 * Write a workbook with options.
+	 *
+	 * @param workbook     workbook
+	 * @param outputStream output stream, it's not closed.
+	 * @param options      options, zip options are ignored for xls format.
+	 * @throws IOException couldn't write to
+	 */
+	static void write(@NotNull final Workbook workbook, @NotNull final OutputStream outputStream,
+	                  @NotNull final WriteOptions options) throws IOException {
+		final long start = XlsxMetrics.start();
+		if (0 == start) {
+			writeImpl(workbook, outputStream, options);
+			return;
+		}
+		final CountingOutputStream counting = new CountingOutputStream(outputStream);
+		writeImpl(workbook, counting, options);
+		XlsxMetrics.written(workbook, start, counting.count);
+	}
+
+	private static void writeImpl(@NotNull final Workbook workbook, @NotNull final OutputStream outputStream,
+	                              @NotNull final WriteOptions options) throws IOException {
+		if (workbook instanceof StreamingWorkbook) {
+			((StreamingWorkbook) workbook).write(shield(outputStream), options);
+			return;
+		}
+		if (options.isDefault() || !(workbook instanceof XSSFWorkbook || workbook instanceof SXSSFWorkbook)) {
+			workbook.write(shield(outputStream));
+			return;
+		}
+		try (InputStream inputStream = pipe(workbook::write)) {
+			recompress(inputStream, outputStream, options);
+		}
+	}
+
+	/**
+	 * Read what a producer writes, while it's writing on the default executor.
+	 *
+	 * @param producer producer
+	 * @return input stream
+	 * @throws IOException couldn't create a pipe
+	 * @see #pipe(Producer, Executor)
+	 */
+	@NotNull
+	static InputStream pipe(@NotNull final Producer producer) throws IOException {
+		return pipe(producer, Async.defaultExecutor());
+	}
+
+	/**
+	 * Read what a producer writes, while it's writing on an executor.
+	 * An exception of the producer is thrown by the end of the stream.
+	 * Closing the stream before the end fails the producer at its next write,
+	 * so the stream should be closed even if it's not read to the end;
+	 * a stream which is dropped without closing keeps the producer waiting for the reader.
+	 *
+	 * @param producer producer
+	 * @param executor executor of the producer
+	 * @return input stream
+	 * @throws IOException couldn't create a pipe, or the executor rejected it.
+	 */
+	@NotNull
+	static InputStream pipe(@NotNull final Producer producer, @NotNull final Executor executor) throws IOException {
+		final PipeInputStream inputStream = new PipeInputStream();
+		final PipedOutputStream pipe = new PipedOutputStream(inputStream);
+		final OutputStream outputStream = new FilterOutputStream(pipe) {
+			@Override
+			public void write(final int b) throws IOException {
+				inputStream.ensureOpen();
+				out.write(b);
+			}
+
+			@Override
+			public void write(@NotNull final byte[] b, final int off, final int len) throws IOException {
+				inputStream.ensureOpen();
+				out.write(b, off, len);
+			}
+		};
+		try {
+			executor.execute(() -> {
+				try {
+					producer.write(outputStream);
+				} catch (Throwable e) {
+					inputStream.error = e;
+				} finally {
+					try {
+						pipe.close();
+					} catch (IOException ignore) {
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			inputStream.close();
+			throw new IOException(e);
+		}
+		return inputStream;
+	}
+
+	/**
+	 * Copy entries of a zip stream, deflating them again with options.
+	 *
+	 * @param zip          zip stream
+	 * @param outputStream output stream, it's not closed.
+	 * @param options      options
+	 * @throws IOException couldn't read or write
+	 */
+	static void recompress(@NotNull final InputStream zip, @NotNull final OutputStream outputStream,
+	                       @NotNull final WriteOptions options) throws IOException {
+		final ZipInputStream in = new ZipInputStream(zip);
+		final ZipArchiveOutputStream out = new ZipArchiveOutputStream(shield(outputStream));
+		out.setLevel(options.getCompressionLevel());
+		out.setUseZip64(options.getZip64().getMode());
+		final byte[] buffer = new byte[BUFFER_SIZE];
+		ZipEntry entry;
+		while (null != (entry = in.getNextEntry())) {
+			final ZipArchiveEntry copy = new ZipArchiveEntry(entry.getName());
+			copy.setMethod(ZipEntry.DEFLATED);
+			if (entry.getTime() >= 0) {
+				copy.setTime(entry.getTime());
+			}
+			out.putArchiveEntry(copy);
+			int n;
+			while ((n = in.read(buffer)) > 0) {
+				out.write(buffer, 0, n);
+			}
+			out.closeArchiveEntry();
+		}
+		out.close(); // the shield keeps the output stream open
+		while (zip.read(buffer) >= 0) {
+			// central directory of the source, read to the end for errors of a pipe.
+		}
+	}
+
+	/**
+	 * Output stream which is flushed, but not closed by close().
+	 *
+	 * @param outputStream output stream
+	 * @return shield
+	 */
+	@NotNull
+	static OutputStream shield(@NotNull final OutputStream outputStream) {
+		return new FilterOutputStream(outputStream) {
+			@Override
+			public void write(@NotNull final byte[] b, final int off, final int len) throws IOException {
+				out.write(b, off, len);
+			}
+
+			@Override
+			public void close() throws IOException {
+				out.flush();
+			}
+		};
+	}
+
+	/**
+	 * Output stream which counts bytes written
+	 */
+	static final class CountingOutputStream extends FilterOutputStream {
+		private long count;
+
+		CountingOutputStream(@NotNull final OutputStream outputStream) {
+			super(outputStream);
+		}
+
+		@Override
+		public void write(final int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(@NotNull final byte[] b, final int off, final int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+
+		long getCount() {
+			return count;
+		}
+	}
+
+	/**
+	 * Input stream which counts bytes read
+	 */
+	static final class CountingInputStream extends FilterInputStream {
+		private long count;
+
+		CountingInputStream(@NotNull final InputStream inputStream) {
+			super(inputStream);
+		}
+
+		@Override
+		public int read() throws IOException {
+			final int b = in.read();
+			if (b >= 0) {
+				count++;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(@NotNull final byte[] b, final int off, final int len) throws IOException {
+			final int n = in.read(b, off, len);
+			if (n > 0) {
+				count += n;
+			}
+			return n;
+		}
+
+		@Override
+		public long skip(final long n) throws IOException {
+			final long skipped = in.skip(n);
+			count += skipped;
+			return skipped;
+		}
+
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+
+		long getCount() {
+			return count;
+		}
+	}
+
+	private static final class PipeInputStream extends PipedInputStream {
+		private volatile Throwable error;
+		private volatile boolean closed;
+
+		private PipeInputStream() {
+			super(BUFFER_SIZE);
+		}
+
+		private void ensureOpen() throws IOException {
+			if (closed) {
+				throw new IOException("Stream closed by the reader.");
+			}
+		}
+
+		private int check(final int n) throws IOException {
+			if (n < 0 && null != error) {
+				if (error instanceof IOException) {
+					throw (IOException) error;
+				}
+				throw new IOException(error);
+			}
+			return n;
+		}
+
+		@Override
+		public synchronized int read() throws IOException {
+			return check(super.read());
+		}
+
+		@Override
+		public synchronized int read(@NotNull final byte[] b, final int off, final int len) throws IOException {
+			return check(super.read(b, off, len));
+		}
+
+		@Override
+		public void close() throws IOException {
+			closed = true;
+			super.close();
+			synchronized (this) {
+				notifyAll(); // wakes up a producer waiting for space
+			}
+		}
+	}
+
+	/**
+	 * Streaming workbook, which deflates its entries with options while it's written,
+	 * so it's not deflated twice.
+	 */
+	static final class StreamingWorkbook extends SXSSFWorkbook {
+		private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+		StreamingWorkbook(final int windowSize) {
+			super(windowSize);
+		}
+
+		StreamingWorkbook(@NotNull final XSSFWorkbook workbook, final int windowSize) {
+			super(workbook, windowSize);
+		}
+
+		/**
+		 * Write with options, they're applied only while writing.
+		 *
+		 * @param outputStream output stream
+		 * @param options      options
+		 * @throws IOException couldn't write to
+		 */
+		void write(@NotNull final OutputStream outputStream, @NotNull final WriteOptions options) throws IOException {
+			compressionLevel = options.getCompressionLevel();
+			setZip64Mode(options.getZip64().getMode());
+			try {
+				write(outputStream);
+			} finally {
+				compressionLevel = Deflater.DEFAULT_COMPRESSION;
+				setZip64Mode(Zip64Mode.AsNeeded);
+			}
+		}
+
+		@Override
+		protected ZipArchiveOutputStream createArchiveOutputStream(final OutputStream outputStream) {
+			final ZipArchiveOutputStream out = super.createArchiveOutputStream(outputStream);
+			out.setLevel(compressionLevel);
+			return out;
+		}
+	}
+}
@@ -0,0 +1,181 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Template of workbooks, which is prepared once and shared by threads.
+ * A template file is opened once, named styles are built into it once,
+ * then it's kept as an uncompressed package in memory,
+ * so a new workbook is neither read from a file nor inflated, and its styles are already there.
+ * <pre>{@code
+ * WorkbookTemplate template = new WorkbookTemplate.Builder(new File("report.xlsx"))
+ *         .style("header", workbook -> new CellStyleBuilder(workbook).background(IndexedColors.YELLOW).get())
+ *         .build();
+ *
+ * Workbook workbook = template.newWorkbook();
+ * getCell(sheet, 0, 0).setCellStyle(template.getCellStyle(workbook, "header"));
+ * }</pre>
+ *
+ * @author Elex
+ */
+public final class WorkbookTemplate {
+	private final byte[] bytes;
+	private final Map<String, Integer> styles;
+
+	private WorkbookTemplate(@NotNull final byte[] bytes, @NotNull final Map<String, Integer> styles) {
+		this.bytes = bytes;
+		this.styles = Collections.unmodifiableMap(styles);
+	}
+
+	/**
+	 * Template of a xlsx file, without named styles
+	 *
+	 * @param file xlsx file
+	 * @return template
+	 * @throws IOException if it can't be read from a file
+	 */
+	@NotNull
+	public static WorkbookTemplate of(@NotNull final File file) throws IOException {
+		return new Builder(file).build();
+	}
+
+	/**
+	 * Create a new workbook from the template
+	 *
+	 * @return xssf workbook
+	 * @throws IOException if the template can not be parsed
+	 */
+	@NotNull
+	public XSSFWorkbook newWorkbook() throws IOException {
+		final long start = XlsxMetrics.start();
+		final XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(bytes));
+		XlsxMetrics.opened(workbook, start, bytes.length);
+		return workbook;
+	}
+
+	/**
+	 * Create a new streaming workbook from the template.
+	 * Rows of the template are kept, and new rows should be written after them.
+	 * after finished, don't forget closing the workbook with {@link Xlsx#close(Workbook)}.
+	 *
+	 * @param windowSize number of rows kept in memory
+	 * @return sxssf workbook
+	 * @throws IOException if the template can not be parsed
+	 */
+	@NotNull
+	public SXSSFWorkbook newStreamingWorkbook(final int windowSize) throws IOException {
+		return new WorkbookStreams.StreamingWorkbook(newWorkbook(), windowSize);
+	}
+
+	/**
+	 * Get a named style of a workbook created from the template
+	 *
+	 * @param workbook workbook from {@link #newWorkbook()} or {@link #newStreamingWorkbook(int)}
+	 * @param name     name of a style
+	 * @return cell style
+	 * @throws IllegalStateException Couldn't find a style with that name.
+	 */
+	@NotNull
+	public CellStyle getCellStyle(@NotNull final Workbook workbook, @NotNull final String name)
+			throws IllegalStateException {
+		final Integer index = styles.get(name);
+		if (null == index) {
+			throw new IllegalStateException("Couldn't find a style with that name.");
+		}
+		return workbook.getCellStyleAt(index);
+	}
+
+	/**
+	 * Size of the package in memory
+	 *
+	 * @return bytes
+	 */
+	public int getSize() {
+		return bytes.length;
+	}
+
+	/**
+	 * Builder of a template
+	 */
+	public static final class Builder {
+		private final XSSFWorkbook workbook;
+		private final Map<String, Integer> styles = new LinkedHashMap<>();
+
+		/**
+		 * Start with a xlsx file
+		 *
+		 * @param file xlsx file
+		 * @throws IOException              if it can't be read from a file
+		 * @throws IllegalArgumentException if it's not a xlsx file.
+		 */
+		public Builder(@NotNull final File file) throws IOException, IllegalArgumentException {
+			final Workbook workbook = Xlsx.getWorkbook(file, false);
+			if (!(workbook instanceof XSSFWorkbook)) {
+				workbook.close();
+				throw new IllegalArgumentException("Template should be a xlsx file.");
+			}
+			this.workbook = (XSSFWorkbook) workbook;
+		}
+
+		/**
+		 * Start with a workbook, which is closed when built.
+		 *
+		 * @param workbook xssf workbook
+		 */
+		public Builder(@NotNull final XSSFWorkbook workbook) {
+			this.workbook = workbook;
+		}
+
+		/**
+		 * Build a named style into the template
+		 *
+		 * @param name    name of a style
+		 * @param factory creates a style in the template workbook
+		 * @return builder
+		 */
+		@NotNull
+		public Builder style(@NotNull final String name, @NotNull final Function<Workbook, CellStyle> factory) {
+			styles.put(name, (int) factory.apply(workbook).getIndex());
+			return this;
+		}
+
+		/**
+		 * Build a template, and close the workbook
+		 *
+		 * @return template
+		 * @throws IOException if it can not be written
+		 */
+		@NotNull
+		public WorkbookTemplate build() throws IOException {
+			final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+			try {
+				Xlsx.writeOut(workbook, outputStream, new WriteOptions().noCompression());
+			} finally {
+				workbook.close();
+			}
+			return new WorkbookTemplate(outputStream.toByteArray(), styles);
+		}
+	}
+}
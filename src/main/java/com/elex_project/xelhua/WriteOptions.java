@@ -0,0 +1,178 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.apache.commons.compress.archivers.zip.Zip64Mode;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.zip.Deflater;
+
+/**
+ * Options of saving a workbook.
+ * <pre>{@code
+ * writeOut(workbook, file, new WriteOptions().fastest());
+ * }</pre>
+ * Deflate level and ZIP64 mode are applied to xlsx formats only.
+ * A streaming workbook from {@link Xlsx#createStreamingWorkbook(int, WriteOptions)} is deflated with them directly.
+ * For other workbooks, with anything other than defaults, zip entries written by POI are deflated again,
+ * which costs an extra pass over the data.
+ *
+ * @author Elex
+ */
+public final class WriteOptions {
+	private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+	private boolean compressTempFiles = false;
+	private Zip64 zip64 = Zip64.AS_NEEDED;
+
+	/**
+	 * ZIP64 extensions
+	 */
+	public enum Zip64 {
+		/**
+		 * Only for entries larger than 4GB, which fails if the size is not known in advance.
+		 */
+		AS_NEEDED(Zip64Mode.AsNeeded),
+		/**
+		 * For all entries, some old readers can't read it.
+		 */
+		ALWAYS(Zip64Mode.Always),
+		/**
+		 * Never, which fails for entries larger than 4GB.
+		 */
+		NEVER(Zip64Mode.Never);
+
+		private final Zip64Mode mode;
+
+		Zip64(@NotNull final Zip64Mode mode) {
+			this.mode = mode;
+		}
+
+		@NotNull
+		Zip64Mode getMode() {
+			return mode;
+		}
+	}
+
+	/**
+	 * Default options
+	 */
+	public WriteOptions() {
+	}
+
+	/**
+	 * Set a deflate level
+	 *
+	 * @param compressionLevel 0 (no compression) to 9 (best compression),
+	 *                         or -1 for a default level of POI.
+	 * @return options
+	 * @throws IllegalArgumentException if it's out of range.
+	 */
+	@NotNull
+	public WriteOptions compressionLevel(final int compressionLevel) throws IllegalArgumentException {
+		if (compressionLevel < Deflater.DEFAULT_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+			throw new IllegalArgumentException("Compression level should be in -1..9.");
+		}
+		this.compressionLevel = compressionLevel;
+		return this;
+	}
+
+	/**
+	 * Fastest compression, for internal pipelines
+	 *
+	 * @return options
+	 */
+	@NotNull
+	public WriteOptions fastest() {
+		return compressionLevel(Deflater.BEST_SPEED);
+	}
+
+	/**
+	 * Best compression, for archives
+	 *
+	 * @return options
+	 */
+	@NotNull
+	public WriteOptions smallest() {
+		return compressionLevel(Deflater.BEST_COMPRESSION);
+	}
+
+	/**
+	 * No compression, entries are deflated without compressing.
+	 *
+	 * @return options
+	 */
+	@NotNull
+	public WriteOptions noCompression() {
+		return compressionLevel(Deflater.NO_COMPRESSION);
+	}
+
+	/**
+	 * Compress temp files of a streaming workbook with gzip.
+	 * Rows are flushed into temp files before saving,
+	 * so it's applied when a workbook is created with {@link Xlsx#createStreamingWorkbook(int, WriteOptions)}.
+	 *
+	 * @param compressTempFiles compress temp files?
+	 * @return options
+	 */
+	@NotNull
+	public WriteOptions compressTempFiles(final boolean compressTempFiles) {
+		this.compressTempFiles = compressTempFiles;
+		return this;
+	}
+
+	/**
+	 * Set a ZIP64 mode
+	 *
+	 * @param zip64 ZIP64 mode
+	 * @return options
+	 */
+	@NotNull
+	public WriteOptions zip64(@NotNull final Zip64 zip64) {
+		this.zip64 = zip64;
+		return this;
+	}
+
+	/**
+	 * Deflate level
+	 *
+	 * @return 0-9, or -1
+	 */
+	public int getCompressionLevel() {
+		return compressionLevel;
+	}
+
+	/**
+	 * Compress temp files?
+	 *
+	 * @return true if compressed
+	 */
+	public boolean isCompressTempFiles() {
+		return compressTempFiles;
+	}
+
+	/**
+	 * ZIP64 mode
+	 *
+	 * @return ZIP64 mode
+	 */
+	@NotNull
+	public Zip64 getZip64() {
+		return zip64;
+	}
+
+	/**
+	 * Is the output of POI written as is?
+	 *
+	 * @return true if nothing is changed
+	 */
+	boolean isDefault() {
+		return compressionLevel == Deflater.DEFAULT_COMPRESSION && zip64 == Zip64.AS_NEEDED;
+	}
+}
@@ -0,0 +1,320 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.apache.poi.hssf.eventusermodel.*;
+import org.apache.poi.hssf.eventusermodel.dummyrecord.LastCellOfRowDummyRecord;
+import org.apache.poi.hssf.record.*;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Streaming reader of xls format.
+ * It walks records of a sheet with the event api of POI, instead of building a whole workbook in memory,
+ * and calls back with the same {@link RowView} of {@link XlsxReader}.
+ * <pre>{@code
+ * try (XlsReader reader = XlsReader.open(file)) {
+ *     reader.read("Sheet1", row -> {
+ *         String name = row.readString(0);
+ *         double price = row.readNumeric(1);
+ *     });
+ * }
+ * }</pre>
+ *
+ * @author Elex
+ */
+public final class XlsReader implements Closeable {
+	private final POIFSFileSystem fs;
+	private final List<String> sheetNames;
+	private final boolean date1904;
+
+	private XlsReader(@NotNull final POIFSFileSystem fs) throws IOException {
+		this.fs = fs;
+		final List<BoundSheetRecord> records = new ArrayList<>();
+		final boolean[] date1904 = {false};
+		process(record -> {
+			if (record instanceof BoundSheetRecord) {
+				records.add((BoundSheetRecord) record);
+			} else if (record instanceof DateWindow1904Record) {
+				date1904[0] = ((DateWindow1904Record) record).getWindowing() == 1;
+			}
+			return record instanceof EOFRecord;
+		});
+		this.date1904 = date1904[0];
+		final List<String> names = new ArrayList<>();
+		for (final BoundSheetRecord record : BoundSheetRecord.orderByBofPosition(records)) {
+			names.add(record.getSheetname());
+		}
+		this.sheetNames = Collections.unmodifiableList(names);
+	}
+
+	/**
+	 * Open a xls file
+	 *
+	 * @param file file
+	 * @return reader
+	 * @throws IOException if it can't be read from a file
+	 */
+	@NotNull
+	public static XlsReader open(@NotNull final File file) throws IOException {
+		return open(new POIFSFileSystem(file, true));
+	}
+
+	/**
+	 * Open a xls file
+	 *
+	 * @param file a file path
+	 * @return reader
+	 * @throws IOException if it can't be read from a file
+	 */
+	@NotNull
+	public static XlsReader open(@NotNull final String file) throws IOException {
+		return open(new File(file));
+	}
+
+	/**
+	 * Open xls format from input stream.
+	 * the file system is buffered in memory, so prefer {@link #open(File)}.
+	 *
+	 * @param inputStream input stream
+	 * @return reader
+	 * @throws IOException if it can not be read
+	 */
+	@NotNull
+	public static XlsReader open(@NotNull final InputStream inputStream) throws IOException {
+		return open(new POIFSFileSystem(inputStream));
+	}
+
+	@NotNull
+	private static XlsReader open(@NotNull final POIFSFileSystem fs) throws IOException {
+		try {
+			return new XlsReader(fs);
+		} catch (IOException | RuntimeException e) {
+			fs.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Names of sheets
+	 *
+	 * @return sheet names in order
+	 */
+	@NotNull
+	public List<String> getSheetNames() {
+		return sheetNames;
+	}
+
+	/**
+	 * Read rows of a named sheet
+	 *
+	 * @param name    name of a sheet
+	 * @param handler row callback
+	 * @throws IOException           if it can not be read
+	 * @throws IllegalStateException Couldn't find a sheet with that name.
+	 */
+	public void read(@NotNull final String name, @NotNull final RowHandler handler)
+			throws IOException, IllegalStateException {
+		final int index = sheetNames.indexOf(name);
+		if (index < 0) {
+			throw new IllegalStateException("Couldn't find a sheet with that name.");
+		}
+		read(index, handler);
+	}
+
+	/**
+	 * Read rows of an n-th sheet
+	 *
+	 * @param index   index of a sheet
+	 * @param handler row callback
+	 * @throws IOException           if it can not be read
+	 * @throws IllegalStateException Couldn't find a sheet at that index.
+	 */
+	public void read(final int index, @NotNull final RowHandler handler)
+			throws IOException, IllegalStateException {
+		if (index < 0 || index >= sheetNames.size()) {
+			throw new IllegalStateException("Couldn't find a sheet at that index.");
+		}
+		final SheetListener listener = new SheetListener(index, date1904, handler);
+		final FormatTrackingHSSFListener formats =
+				new FormatTrackingHSSFListener(new MissingRecordAwareHSSFListener(listener));
+		listener.formats = formats;
+		process(record -> {
+			formats.processRecord(record);
+			return listener.done;
+		});
+	}
+
+	private void process(@NotNull final RecordListener listener) throws IOException {
+		final HSSFRequest request = new HSSFRequest();
+		request.addListenerForAllRecords(new AbortableHSSFListener() {
+			@Override
+			public short abortableProcessRecord(final Record record) {
+				return listener.process(record) ? (short) 1 : 0;
+			}
+		});
+		try {
+			new HSSFEventFactory().abortableProcessWorkbookEvents(request, fs);
+		} catch (HSSFUserException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Close the file system
+	 *
+	 * @throws IOException if it can not be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		fs.close();
+	}
+
+	@FunctionalInterface
+	private interface RecordListener {
+		/**
+		 * @param record record
+		 * @return true to stop
+		 */
+		boolean process(@NotNull Record record);
+	}
+
+	/**
+	 * Fills a row view with cell records of a sheet substream.
+	 */
+	private static final class SheetListener implements HSSFListener {
+		// cached result types of a formula record, CellType codes
+		private static final int RESULT_STRING = 1;
+		private static final int RESULT_BOOLEAN = 4;
+		private static final int RESULT_ERROR = 5;
+
+		private final int sheetIndex;
+		private final RowHandler handler;
+		private final RowView row;
+		private FormatTrackingHSSFListener formats;
+		private SSTRecord sst;
+		private int depth = 0, index = -1;
+		private boolean done;
+		@Nullable
+		private FormulaRecord stringFormula;
+
+		private SheetListener(final int sheetIndex, final boolean date1904, @NotNull final RowHandler handler) {
+			this.sheetIndex = sheetIndex;
+			this.handler = handler;
+			this.row = new RowView(date1904);
+		}
+
+		@Override
+		public void processRecord(final Record record) {
+			switch (record.getSid()) {
+				case BOFRecord.sid:
+					if (depth++ == 0 && ((BOFRecord) record).getType() != BOFRecord.TYPE_WORKBOOK) {
+						index++;
+					}
+					return;
+				case EOFRecord.sid:
+					if (--depth == 0 && index == sheetIndex) {
+						done = true;
+					}
+					return;
+				case SSTRecord.sid:
+					sst = (SSTRecord) record;
+					return;
+				default:
+					break;
+			}
+			if (depth != 1 || index != sheetIndex) return;
+
+			if (record instanceof LastCellOfRowDummyRecord) {
+				if (row.getRowNum() == ((LastCellOfRowDummyRecord) record).getRow() && row.getLastCellNum() > 0) {
+					handler.handle(row);
+				}
+				return;
+			}
+			if (record instanceof StringRecord) {
+				if (null != stringFormula) {
+					start(stringFormula);
+					row.setString(stringFormula.getColumn(), ((StringRecord) record).getString());
+					stringFormula = null;
+				}
+				return;
+			}
+			if (!(record instanceof CellValueRecordInterface)) return;
+			final CellValueRecordInterface cell = (CellValueRecordInterface) record;
+			switch (record.getSid()) {
+				case NumberRecord.sid:
+					setNumeric(cell, ((NumberRecord) record).getValue());
+					break;
+				case LabelSSTRecord.sid:
+					start(cell);
+					row.setString(cell.getColumn(), sst.getString(((LabelSSTRecord) record).getSSTIndex()).getString());
+					break;
+				case LabelRecord.sid:
+					start(cell);
+					row.setString(cell.getColumn(), ((LabelRecord) record).getValue());
+					break;
+				case BoolErrRecord.sid:
+					final BoolErrRecord boolErr = (BoolErrRecord) record;
+					start(cell);
+					if (boolErr.isBoolean()) {
+						row.setBoolean(cell.getColumn(), boolErr.getBooleanValue());
+					} else {
+						row.setError(cell.getColumn(), FormulaError.forInt(boolErr.getErrorValue()).getString());
+					}
+					break;
+				case FormulaRecord.sid:
+					setFormula((FormulaRecord) record);
+					break;
+				default:
+					break;
+			}
+		}
+
+		private void setFormula(@NotNull final FormulaRecord formula) {
+			final int resultType = formula.getCachedResultType();
+			if (resultType == RESULT_STRING) {
+				if (formula.hasCachedResultString()) {
+					stringFormula = formula; // the value follows in a string record
+				}
+			} else if (resultType == RESULT_BOOLEAN) {
+				start(formula);
+				row.setBoolean(formula.getColumn(), formula.getCachedBooleanValue());
+			} else if (resultType == RESULT_ERROR) {
+				start(formula);
+				row.setError(formula.getColumn(), FormulaError.forInt(formula.getCachedErrorValue()).getString());
+			} else {
+				setNumeric(formula, formula.getValue());
+			}
+		}
+
+		private void setNumeric(@NotNull final CellValueRecordInterface cell, final double value) {
+			start(cell);
+			final short formatIndex = (short) formats.getFormatIndex(cell);
+			final String formatString = formats.getFormatString(cell);
+			row.setNumeric(cell.getColumn(), value, formatIndex, formatString,
+					null != formatString && DateUtil.isADateFormat(formatIndex, formatString));
+		}
+
+		private void start(@NotNull final CellValueRecordInterface cell) {
+			if (row.getRowNum() != cell.getRow()) {
+				row.start(cell.getRow());
+			}
+		}
+	}
+}
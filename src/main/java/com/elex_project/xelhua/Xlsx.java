@@ -10,17 +10,28 @@
 package com.elex_project.xelhua;
 
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Base Utility class to manipulating Excel
@@ -38,15 +49,114 @@ public interface Xlsx {
 	 */
 	@NotNull
 	public static Workbook getWorkbook(@NotNull final String file) throws IOException {
+		return getWorkbook(new File(file), false);
+	}
+
+	/**
+	 * Open a Excel file
+	 *
+	 * @param file a file with a extension .xls or .xlsx
+	 * @return workbook
+	 * @throws IOException if it can't be read from a file
+	 * @see #getWorkbook(File, boolean)
+	 */
+	@NotNull
+	public static Workbook getWorkbook(@NotNull final File file) throws IOException {
+		return getWorkbook(file, false);
+	}
+
+	/**
+	 * Open a Excel file
+	 *
+	 * @param file a file with a extension .xls or .xlsx
+	 * @return workbook
+	 * @throws IOException if it can't be read from a file
+	 * @see #getWorkbook(File, boolean)
+	 */
+	@NotNull
+	public static Workbook getWorkbook(@NotNull final Path file) throws IOException {
+		return getWorkbook(file.toFile(), false);
+	}
+
+	/**
+	 * Open a Excel file.
+	 * A read-only xls file is read through a memory-mapped file channel, instead of copying it into heap,
+	 * and a read-only xlsx file is read from the zip file directly, entry by entry;
+	 * such a workbook can not be written out to the same file.
+	 * Otherwise the whole file is loaded into memory, so it can be saved in place.
+	 * File handles are closed with the workbook, or when it fails to open.
+	 *
+	 * @param file     a file with a extension .xls or .xlsx
+	 * @param readOnly open a file read-only?
+	 * @return workbook
+	 * @throws IOException if it can't be read from a file
+	 */
+	@NotNull
+	public static Workbook getWorkbook(@NotNull final File file, final boolean readOnly) throws IOException {
+		if (!file.isFile()) {
+			throw new FileNotFoundException(file.getPath());
+		}
+		final long start = XlsxMetrics.start();
 		final Workbook workbook;
-		if (file.endsWith("xls")) {
-			workbook = getHSSFWorkbook(new FileInputStream(file));
+		if (file.getName().endsWith("xls") && !readOnly) {
+			try (InputStream inputStream = new FileInputStream(file)) {
+				workbook = new HSSFWorkbook(inputStream);
+			}
+		} else if (file.getName().endsWith("xls")) {
+			final POIFSFileSystem fileSystem = new POIFSFileSystem(file, true);
+			try {
+				workbook = new HSSFWorkbook(fileSystem.getRoot(), true);
+			} catch (IOException | RuntimeException e) {
+				fileSystem.close();
+				throw e;
+			}
+		} else if (!readOnly) {
+			try (InputStream inputStream = new FileInputStream(file)) {
+				workbook = new XSSFWorkbook(inputStream);
+			}
 		} else {
-			workbook = getXSSFWorkbook(new FileInputStream(file));
+			final OPCPackage pkg;
+			try {
+				pkg = OPCPackage.open(file, PackageAccess.READ);
+			} catch (InvalidFormatException e) {
+				throw new IOException(e);
+			}
+			try {
+				workbook = new XSSFWorkbook(pkg);
+			} catch (IOException | RuntimeException e) {
+				pkg.revert();
+				throw e;
+			}
 		}
+		XlsxMetrics.opened(workbook, start, file.length());
 		return workbook;
 	}
 
+	/**
+	 * Open a Excel file on a default executor,
+	 * which runs virtual threads if the runtime has them, or daemon threads.
+	 *
+	 * @param file a file with a extension .xls or .xlsx
+	 * @return future of a workbook, which fails with an IOException if it can't be read.
+	 */
+	@NotNull
+	public static CompletableFuture<Workbook> getWorkbookAsync(@NotNull final File file) {
+		return getWorkbookAsync(file, Async.defaultExecutor());
+	}
+
+	/**
+	 * Open a Excel file on an executor
+	 *
+	 * @param file     a file with a extension .xls or .xlsx
+	 * @param executor executor
+	 * @return future of a workbook, which fails with an IOException if it can't be read.
+	 */
+	@NotNull
+	public static CompletableFuture<Workbook> getWorkbookAsync(@NotNull final File file,
+	                                                           @NotNull final Executor executor) {
+		return Async.supply(() -> getWorkbook(file), executor);
+	}
+
 	/**
 	 * Create a new workbook
 	 *
@@ -56,6 +166,65 @@ public interface Xlsx {
 		return new XSSFWorkbook();
 	}
 
+	/**
+	 * Create a new streaming workbook with a default window size.
+	 *
+	 * @return sxssf workbook
+	 * @see #createStreamingWorkbook(int, boolean)
+	 */
+	@NotNull
+	public static SXSSFWorkbook createStreamingWorkbook() {
+		return createStreamingWorkbook(SXSSFWorkbook.DEFAULT_WINDOW_SIZE, false);
+	}
+
+	/**
+	 * Create a new streaming workbook.
+	 * Only the last 'windowSize' rows of each sheet are kept in memory,
+	 * older rows are flushed to a temp file and can not be accessed any more.
+	 * after finished, don't forget closing the workbook with {@link #close(Workbook)}
+	 * to delete the temp files.
+	 *
+	 * @param windowSize        number of rows kept in memory, or -1 for unlimited
+	 * @param compressTempFiles compress temp files with gzip?
+	 * @return sxssf workbook
+	 */
+	@NotNull
+	public static SXSSFWorkbook createStreamingWorkbook(final int windowSize, final boolean compressTempFiles) {
+		final SXSSFWorkbook workbook = new WorkbookStreams.StreamingWorkbook(windowSize);
+		workbook.setCompressTempFiles(compressTempFiles);
+		return workbook;
+	}
+
+	/**
+	 * Create a new streaming workbook, with options for temp files.
+	 *
+	 * @param windowSize number of rows kept in memory, or -1 for unlimited
+	 * @param options    options
+	 * @return sxssf workbook
+	 * @see #createStreamingWorkbook(int, boolean)
+	 */
+	@NotNull
+	public static SXSSFWorkbook createStreamingWorkbook(final int windowSize, @NotNull final WriteOptions options) {
+		return createStreamingWorkbook(windowSize, options.isCompressTempFiles());
+	}
+
+	/**
+	 * Close a workbook.
+	 * temp files of a streaming workbook are deleted too.
+	 *
+	 * @param workbook workbook
+	 * @throws IOException couldn't close
+	 */
+	public static void close(@NotNull final Workbook workbook) throws IOException {
+		try {
+			if (workbook instanceof SXSSFWorkbook) {
+				((SXSSFWorkbook) workbook).dispose();
+			}
+		} finally {
+			workbook.close();
+		}
+	}
+
 	/**
 	 * Open xls format from input stream
 	 *
@@ -65,7 +234,14 @@ public interface Xlsx {
 	 */
 	@NotNull
 	public static HSSFWorkbook getHSSFWorkbook(@NotNull final InputStream inputStream) throws IOException {
-		return new HSSFWorkbook(inputStream);
+		final long start = XlsxMetrics.start();
+		if (0 == start) {
+			return new HSSFWorkbook(inputStream);
+		}
+		final WorkbookStreams.CountingInputStream counting = new WorkbookStreams.CountingInputStream(inputStream);
+		final HSSFWorkbook workbook = new HSSFWorkbook(counting);
+		XlsxMetrics.opened(workbook, start, counting.getCount());
+		return workbook;
 	}
 
 	/**
@@ -77,7 +253,14 @@ public interface Xlsx {
 	 */
 	@NotNull
 	public static XSSFWorkbook getXSSFWorkbook(@NotNull final InputStream inputStream) throws IOException {
-		return new XSSFWorkbook(inputStream);
+		final long start = XlsxMetrics.start();
+		if (0 == start) {
+			return new XSSFWorkbook(inputStream);
+		}
+		final WorkbookStreams.CountingInputStream counting = new WorkbookStreams.CountingInputStream(inputStream);
+		final XSSFWorkbook workbook = new XSSFWorkbook(counting);
+		XlsxMetrics.opened(workbook, start, counting.getCount());
+		return workbook;
 	}
 
 	/**
@@ -157,11 +340,15 @@ public interface Xlsx {
 	 * @param sheet  sheet
 	 * @param rowNum row number
 	 * @return row
+	 * @throws IllegalStateException if the row was already flushed from a streaming sheet.
 	 */
 	@NotNull
-	public static Row getRow(@NotNull final Sheet sheet, final int rowNum) {
+	public static Row getRow(@NotNull final Sheet sheet, final int rowNum) throws IllegalStateException {
 		final Row row = sheet.getRow(rowNum);
 		if (null == row) {
+			if (sheet instanceof SXSSFSheet && rowNum <= ((SXSSFSheet) sheet).getLastFlushedRowNum()) {
+				throw new IllegalStateException("Row " + rowNum + " has already been flushed to disk.");
+			}
 			return sheet.createRow(rowNum);
 		} else {
 			return row;
@@ -216,8 +403,9 @@ public interface Xlsx {
 	 * @param rowNum row number
 	 * @param colNum column number
 	 * @return cell
+	 * @throws IllegalStateException if the row was already flushed from a streaming sheet.
 	 */
-	public static Cell getCell(@NotNull Sheet sheet, final int rowNum, final int colNum) {
+	public static Cell getCell(@NotNull Sheet sheet, final int rowNum, final int colNum) throws IllegalStateException {
 		return getCell(getRow(sheet, rowNum), colNum);
 	}
 
@@ -229,6 +417,7 @@ public interface Xlsx {
 	 * @param headerRow header row with names
 	 * @return a cell or create new one.
 	 * @throws IllegalStateException Couldn't find a cell with that name in header row.
+	 * @see #getCell(Row, String, HeaderIndex)
 	 */
 	@NotNull
 	public static Cell getCell(@NotNull final Row row, @NotNull final String name, @NotNull Row headerRow)
@@ -265,6 +454,44 @@ public interface Xlsx {
 		throw new IllegalStateException("Couldn't find a cell with that name in header row.");
 	}
 
+	/**
+	 * Get a cell with a header name
+	 *
+	 * @param row         row to get a cell
+	 * @param name        column name in a header row
+	 * @param headerIndex column index of a header row
+	 * @return a cell or create new one.
+	 * @throws IllegalStateException Couldn't find a cell with that name in header row.
+	 */
+	@NotNull
+	public static Cell getCell(@NotNull final Row row, @NotNull final String name, @NotNull final HeaderIndex headerIndex)
+			throws IllegalStateException {
+		final int colNum = headerIndex.getColumn(name);
+		if (colNum < 0) {
+			throw new IllegalStateException("Couldn't find a cell with that name in header row.");
+		}
+		return getCell(row, colNum);
+	}
+
+	/**
+	 * Get a cell with a header name, or null.
+	 *
+	 * @param row         row to get a cell
+	 * @param name        column name in a header row
+	 * @param headerIndex column index of a header row
+	 * @return a cell or null
+	 * @throws IllegalStateException Couldn't find a cell with that name in header row.
+	 */
+	@Nullable
+	public static Cell getCellOrNull(@NotNull final Row row, @NotNull final String name, @NotNull final HeaderIndex headerIndex)
+			throws IllegalStateException {
+		final int colNum = headerIndex.getColumn(name);
+		if (colNum < 0) {
+			throw new IllegalStateException("Couldn't find a cell with that name in header row.");
+		}
+		return row.getCell(colNum);
+	}
+
 	/**
 	 * Read string value from a cell
 	 *
@@ -330,6 +557,88 @@ public interface Xlsx {
 		}
 	}
 
+	/**
+	 * Read string value from a cell with a header name
+	 *
+	 * @param row         row
+	 * @param name        column name in a header row
+	 * @param headerIndex column index of a header row
+	 * @return string, or an empty string if there's no cell
+	 * @throws IllegalStateException if cannot read a value as a string, or couldn't find the name
+	 */
+	public static String readString(@NotNull final Row row, @NotNull final String name, @NotNull final HeaderIndex headerIndex)
+			throws IllegalStateException {
+		final Cell cell = getCellOrNull(row, name, headerIndex);
+		return null == cell ? "" : readString(cell);
+	}
+
+	/**
+	 * Read numeric value from a cell with a header name
+	 *
+	 * @param row         row
+	 * @param name        column name in a header row
+	 * @param headerIndex column index of a header row
+	 * @return double, or 0 if there's no cell
+	 * @throws IllegalStateException if can not read a value as a number, or couldn't find the name
+	 * @throws NumberFormatException if can not read a value as a number
+	 */
+	public static double readNumeric(@NotNull final Row row, @NotNull final String name, @NotNull final HeaderIndex headerIndex)
+			throws IllegalStateException, NumberFormatException {
+		final Cell cell = getCellOrNull(row, name, headerIndex);
+		return null == cell ? 0 : readNumeric(cell);
+	}
+
+	/**
+	 * Read boolean value from a cell with a header name
+	 *
+	 * @param row         row
+	 * @param name        column name in a header row
+	 * @param headerIndex column index of a header row
+	 * @return boolean, or false if there's no cell
+	 * @throws IllegalStateException if can not read a value as a boolean, or couldn't find the name
+	 */
+	public static boolean readBoolean(@NotNull final Row row, @NotNull final String name, @NotNull final HeaderIndex headerIndex)
+			throws IllegalStateException {
+		final Cell cell = getCellOrNull(row, name, headerIndex);
+		return null != cell && readBoolean(cell);
+	}
+
+	/**
+	 * Read date time from a cell with a header name
+	 *
+	 * @param row         row
+	 * @param name        column name in a header row
+	 * @param headerIndex column index of a header row
+	 * @return local date time at system default zone
+	 * @throws IllegalStateException if there's no date, or couldn't find the name
+	 */
+	public static LocalDateTime readLocalDateTime(@NotNull final Row row, @NotNull final String name, @NotNull final HeaderIndex headerIndex)
+			throws IllegalStateException {
+		final Cell cell = getCellOrNull(row, name, headerIndex);
+		if (null == cell) {
+			throw new IllegalStateException("Cell is not formatted as a date.");
+		}
+		return readLocalDateTime(cell);
+	}
+
+	/**
+	 * Read date from a cell with a header name
+	 *
+	 * @param row         row
+	 * @param name        column name in a header row
+	 * @param headerIndex column index of a header row
+	 * @return local date at system default zone
+	 * @throws IllegalStateException if there's no date, or couldn't find the name
+	 */
+	public static LocalDate readLocalDate(@NotNull final Row row, @NotNull final String name, @NotNull final HeaderIndex headerIndex)
+			throws IllegalStateException {
+		final Cell cell = getCellOrNull(row, name, headerIndex);
+		if (null == cell) {
+			throw new IllegalStateException("Cell is not formatted as a date.");
+		}
+		return readLocalDate(cell);
+	}
+
 	/**
 	 * Read a comment from a cell
 	 *
@@ -346,9 +655,12 @@ public interface Xlsx {
 	 *
 	 * @param cell  cell
 	 * @param value string value
+	 * @see InlineStrings#enable(Workbook)
 	 */
 	public static void write(@NotNull Cell cell, final String value) {
-		cell.setCellValue(value);
+		InlineStrings.writeString(cell, value);
+		Formulas.changed(cell);
+		ColumnWidths.written(cell);
 	}
 
 	/**
@@ -359,6 +671,8 @@ public interface Xlsx {
 	 */
 	public static void write(@NotNull Cell cell, final double value) {
 		cell.setCellValue(value);
+		Formulas.changed(cell);
+		ColumnWidths.written(cell);
 	}
 
 	/**
@@ -369,6 +683,8 @@ public interface Xlsx {
 	 */
 	public static void write(@NotNull Cell cell, final boolean value) {
 		cell.setCellValue(value);
+		Formulas.changed(cell);
+		ColumnWidths.written(cell);
 	}
 
 	/**
@@ -378,14 +694,16 @@ public interface Xlsx {
 	 * @param value    date
 	 * @param workbook workbook. it's required to generate a cell style.
 	 * @param format   date pattern
+	 * @see StyleRegistry#getCellStyle(Workbook, CellStyle, String)
 	 */
 	public static void write(@NotNull Cell cell, final LocalDate value, @NotNull final Workbook workbook, @NotNull final String format) {
-		final CreationHelper creationHelper = workbook.getCreationHelper();
-		final CellStyle cellStyle = workbook.createCellStyle();
-		cellStyle.setDataFormat(creationHelper.createDataFormat().getFormat(format));
-		cell.setCellStyle(cellStyle);
+		final long start = XlsxMetrics.start();
+		cell.setCellStyle(StyleRegistry.getCellStyle(workbook, cell.getCellStyle(), format));
 
 		cell.setCellValue(value);
+		Formulas.changed(cell);
+		ColumnWidths.written(cell);
+		XlsxMetrics.cellsWritten(cell.getSheet(), start, 0, 1);
 	}
 
 	/**
@@ -406,14 +724,16 @@ public interface Xlsx {
 	 * @param value    date time
 	 * @param workbook workbook, it's required to generate a cell style.
 	 * @param format   date time pattern
+	 * @see StyleRegistry#getCellStyle(Workbook, CellStyle, String)
 	 */
 	public static void write(@NotNull Cell cell, final LocalDateTime value, @NotNull final Workbook workbook, @NotNull final String format) {
-		final CreationHelper creationHelper = workbook.getCreationHelper();
-		final CellStyle cellStyle = workbook.createCellStyle();
-		cellStyle.setDataFormat(creationHelper.createDataFormat().getFormat(format));
-		cell.setCellStyle(cellStyle);
+		final long start = XlsxMetrics.start();
+		cell.setCellStyle(StyleRegistry.getCellStyle(workbook, cell.getCellStyle(), format));
 
 		cell.setCellValue(value);
+		Formulas.changed(cell);
+		ColumnWidths.written(cell);
+		XlsxMetrics.cellsWritten(cell.getSheet(), start, 0, 1);
 	}
 
 	/**
@@ -427,6 +747,96 @@ public interface Xlsx {
 		write(cell, value, workbook, "yyyy-MM-dd HH:mm:ss");
 	}
 
+	/**
+	 * Write rows of values.
+	 * a cell type is chosen by the type of a value:
+	 * String, Number, Boolean, LocalDate, LocalDateTime, Date and Calendar,
+	 * or a string of any other object. a cell is not created for null.
+	 * Use a {@link RowWriter} for typed columns.
+	 *
+	 * @param sheet    sheet
+	 * @param startRow first row number
+	 * @param rows     rows of values
+	 * @return the next row number
+	 */
+	public static int writeRows(@NotNull final Sheet sheet, final int startRow, @NotNull final Iterable<Object[]> rows) {
+		return RowWriter.writeObjects(sheet, startRow, rows);
+	}
+
+	/**
+	 * Write a formula
+	 *
+	 * @param cell    cell
+	 * @param formula formula, without a leading '='. ex) "SUM(A1:A10)"
+	 */
+	public static void writeFormula(@NotNull Cell cell, @NotNull final String formula) {
+		cell.setCellFormula(formula);
+		Formulas.formulaChanged(cell);
+	}
+
+	/**
+	 * Get a formula evaluator of a workbook.
+	 * It's created once and reused, and cells written by this library are notified to it,
+	 * so results of unchanged formulas are not calculated again.
+	 * Cells changed by POI directly should be notified with {@link FormulaEvaluator#notifyUpdateCell(Cell)}.
+	 *
+	 * @param workbook workbook
+	 * @return evaluator
+	 */
+	@NotNull
+	public static FormulaEvaluator getFormulaEvaluator(@NotNull final Workbook workbook) {
+		return Formulas.evaluator(workbook);
+	}
+
+	/**
+	 * Evaluate formulas of a sheet, and keep results in the cells.
+	 *
+	 * @param sheet sheet
+	 * @return number of formula cells
+	 * @see #getFormulaEvaluator(Workbook)
+	 */
+	public static int evaluate(@NotNull final Sheet sheet) {
+		return Formulas.evaluate(sheet, null);
+	}
+
+	/**
+	 * Evaluate formulas in a range, and keep results in the cells.
+	 *
+	 * @param sheet sheet
+	 * @param range range of cells
+	 * @return number of formula cells
+	 * @see #getFormulaEvaluator(Workbook)
+	 */
+	public static int evaluate(@NotNull final Sheet sheet, @NotNull final CellRangeAddress range) {
+		return Formulas.evaluate(sheet, range);
+	}
+
+	/**
+	 * Evaluate formulas of all sheets, and keep results in the cells.
+	 *
+	 * @param workbook workbook
+	 * @return number of formula cells
+	 * @see #getFormulaEvaluator(Workbook)
+	 */
+	public static int evaluateAll(@NotNull final Workbook workbook) {
+		return Formulas.evaluateAll(workbook);
+	}
+
+	/**
+	 * Evaluate formulas of all sheets on an executor, such as a pool for CPU bound work,
+	 * and keep results in the cells.
+	 * POI workbooks are not thread-safe, so it's not parallel;
+	 * sheets are evaluated one after another by a single task, while the calling thread waits.
+	 * The workbook must not be touched by other threads until it returns.
+	 *
+	 * @param workbook workbook
+	 * @param executor executor
+	 * @return number of formula cells
+	 */
+	public static int evaluateAll(@NotNull final Workbook workbook, @NotNull final Executor executor) {
+		return Formulas.evaluateAll(workbook, executor);
+	}
+
 	/**
 	 * Return a cell type. {@link Cell#getCellType()}
 	 *
@@ -524,13 +934,27 @@ public interface Xlsx {
 		sheet.setDefaultRowHeight((short) (points * 20));
 	}
 
+	/**
+	 * Track all columns of a streaming sheet for {@link #autoWidth(Sheet)}.
+	 * It should be called before any row is flushed. Does nothing with other sheets.
+	 *
+	 * @param sheet sheet
+	 */
+	public static void trackWidth(@NotNull final Sheet sheet) {
+		if (sheet instanceof SXSSFSheet) {
+			((SXSSFSheet) sheet).trackAllColumnsForAutoSizing();
+		}
+	}
+
 	/**
 	 * auto-resize column width
 	 *
 	 * @param sheet  sheet
 	 * @param colNum column number
+	 * @throws IllegalStateException if the column of a streaming sheet is not tracked.
+	 * @see #trackWidth(Sheet)
 	 */
-	public static void autoWidth(@NotNull final Sheet sheet, final int colNum) {
+	public static void autoWidth(@NotNull final Sheet sheet, final int colNum) throws IllegalStateException {
 		sheet.autoSizeColumn(colNum);
 	}
 
@@ -546,20 +970,52 @@ public interface Xlsx {
 
 	/**
 	 * auto-resize width of all columns
-	 * (repeat {@link #autoWidth(Sheet, Cell)} for cells in the first row)
+	 * (repeat {@link #autoWidth(Sheet, Cell)} for cells in the first row,
+	 * or for tracked columns of a streaming sheet)
 	 *
 	 * @param sheet sheet
+	 * @see #trackWidth(Sheet)
 	 */
 	public static void autoWidth(@NotNull final Sheet sheet) {
-		final Row row = getRow(sheet, 0);
+		if (sheet instanceof SXSSFSheet) {
+			for (final Integer colNum : ((SXSSFSheet) sheet).getTrackedColumnsForAutoSizing()) {
+				autoWidth(sheet, colNum);
+			}
+			return;
+		}
+		final Row row = getRowOrNull(sheet, 0);
+		if (null == row) return;
 		for (final Cell cell : row) {
 			autoWidth(sheet, cell);
 		}
 	}
 
+	/**
+	 * Set estimated widths of all used columns, without AWT font measurement.
+	 * It's much faster than {@link #autoWidth(Sheet)} for large sheets, but less precise.
+	 * If the sheet is tracked, widths observed while writing are used,
+	 * otherwise all rows in memory are read once.
+	 * A tracked sheet observes cells written by the write helpers, {@link RowWriter} and {@link SheetMapper};
+	 * values set on cells directly are not observed.
+	 *
+	 * @param sheet sheet
+	 * @see ColumnWidths#track(Sheet)
+	 */
+	public static void autoWidthEstimated(@NotNull final Sheet sheet) {
+		ColumnWidths widths = ColumnWidths.of(sheet);
+		if (null == widths) {
+			widths = new ColumnWidths();
+			for (final Row row : sheet) {
+				widths.observe(row);
+			}
+		}
+		widths.apply(sheet);
+	}
+
 	/**
 	 * Save workbook to output stream
 	 * after finished, don't forget closing the output stream and workbook.
+	 * a streaming workbook should be closed with {@link #close(Workbook)}.
 	 *
 	 * @param workbook     workbook
 	 * @param outputStream output stream
@@ -567,7 +1023,132 @@ public interface Xlsx {
 	 */
 	public static void writeOut(@NotNull final Workbook workbook, @NotNull final OutputStream outputStream)
 			throws IOException {
-		workbook.write(outputStream);
+		writeOut(workbook, outputStream, new WriteOptions());
+	}
+
+	/**
+	 * Save workbook to output stream, with options.
+	 * after finished, don't forget closing the output stream and workbook.
+	 *
+	 * @param workbook     workbook
+	 * @param outputStream output stream
+	 * @param options      options
+	 * @throws IOException couldn't write to
+	 */
+	public static void writeOut(@NotNull final Workbook workbook, @NotNull final OutputStream outputStream,
+	                            @NotNull final WriteOptions options) throws IOException {
+		WorkbookStreams.write(workbook, outputStream, options);
+	}
+
+	/**
+	 * Save workbook to output stream, with a compression level.
+	 * after finished, don't forget closing the output stream and workbook.
+	 *
+	 * @param workbook         workbook
+	 * @param outputStream     output stream
+	 * @param compressionLevel 0 (no compression) to 9 (best compression),
+	 *                         or -1 for a default level of POI.
+	 * @throws IOException couldn't write to
+	 * @see WriteOptions#compressionLevel(int)
+	 */
+	public static void writeOut(@NotNull final Workbook workbook, @NotNull final OutputStream outputStream,
+	                            final int compressionLevel) throws IOException {
+		writeOut(workbook, outputStream, new WriteOptions().compressionLevel(compressionLevel));
+	}
+
+	/**
+	 * Save workbook to channel, without copying it into a temp file or a buffer.
+	 * after finished, don't forget closing the channel and workbook.
+	 *
+	 * @param workbook workbook
+	 * @param channel  channel, it's not closed.
+	 * @throws IOException couldn't write to
+	 */
+	public static void writeOut(@NotNull final Workbook workbook, @NotNull final WritableByteChannel channel)
+			throws IOException {
+		writeOut(workbook, channel, new WriteOptions());
+	}
+
+	/**
+	 * Save workbook to channel, with a compression level.
+	 * after finished, don't forget closing the channel and workbook.
+	 *
+	 * @param workbook         workbook
+	 * @param channel          channel, it's not closed.
+	 * @param compressionLevel 0 (no compression) to 9 (best compression),
+	 *                         or -1 for a default level of POI.
+	 * @throws IOException couldn't write to
+	 * @see WriteOptions#compressionLevel(int)
+	 */
+	public static void writeOut(@NotNull final Workbook workbook, @NotNull final WritableByteChannel channel,
+	                            final int compressionLevel) throws IOException {
+		writeOut(workbook, channel, new WriteOptions().compressionLevel(compressionLevel));
+	}
+
+	/**
+	 * Save workbook to channel, with options.
+	 * after finished, don't forget closing the channel and workbook.
+	 *
+	 * @param workbook workbook
+	 * @param channel  channel, it's not closed.
+	 * @param options  options
+	 * @throws IOException couldn't write to
+	 */
+	public static void writeOut(@NotNull final Workbook workbook, @NotNull final WritableByteChannel channel,
+	                            @NotNull final WriteOptions options) throws IOException {
+		WorkbookStreams.write(workbook, Channels.newOutputStream(channel), options);
+	}
+
+	/**
+	 * Stream a workbook being written on a background thread.
+	 * Bytes are available as soon as they're written, so it can be copied to a client directly.
+	 * The workbook should not be touched until the stream ends.
+	 * Close the stream even if it's not read to the end, such as when a client disconnects;
+	 * it stops writing with an exception.
+	 * <pre>{@code
+	 * try (InputStream inputStream = openInputStream(workbook)) {
+	 *     copy(inputStream, response.getOutputStream());
+	 * }
+	 * }</pre>
+	 *
+	 * @param workbook workbook
+	 * @return input stream, it throws an exception of writing at the end.
+	 * @throws IOException couldn't start writing
+	 */
+	@NotNull
+	public static InputStream openInputStream(@NotNull final Workbook workbook) throws IOException {
+		return openInputStream(workbook, new WriteOptions());
+	}
+
+	/**
+	 * Stream a workbook being written on a background thread, with a compression level.
+	 *
+	 * @param workbook         workbook
+	 * @param compressionLevel 0 (no compression) to 9 (best compression),
+	 *                         or -1 for a default level of POI.
+	 * @return input stream, it throws an exception of writing at the end.
+	 * @throws IOException couldn't start writing
+	 * @see #openInputStream(Workbook)
+	 */
+	@NotNull
+	public static InputStream openInputStream(@NotNull final Workbook workbook, final int compressionLevel)
+			throws IOException {
+		return openInputStream(workbook, new WriteOptions().compressionLevel(compressionLevel));
+	}
+
+	/**
+	 * Stream a workbook being written on a background thread, with options.
+	 *
+	 * @param workbook workbook
+	 * @param options  options
+	 * @return input stream, it throws an exception of writing at the end.
+	 * @throws IOException couldn't start writing
+	 * @see #openInputStream(Workbook)
+	 */
+	@NotNull
+	public static InputStream openInputStream(@NotNull final Workbook workbook, @NotNull final WriteOptions options)
+			throws IOException {
+		return WorkbookStreams.pipe(out -> WorkbookStreams.write(workbook, out, options));
 	}
 
 	/**
@@ -580,8 +1161,22 @@ public interface Xlsx {
 	 */
 	public static void writeOut(@NotNull final Workbook workbook, @NotNull final File file)
 			throws IOException {
+		writeOut(workbook, file, new WriteOptions());
+	}
+
+	/**
+	 * Save workbook to file, with options.
+	 * after finished, don't forget closing workbook.
+	 *
+	 * @param workbook workbook
+	 * @param file     file
+	 * @param options  options
+	 * @throws IOException couldn't write to
+	 */
+	public static void writeOut(@NotNull final Workbook workbook, @NotNull final File file,
+	                            @NotNull final WriteOptions options) throws IOException {
 		try (FileOutputStream outputStream = new FileOutputStream(file)) {
-			workbook.write(outputStream);
+			writeOut(workbook, outputStream, options);
 		}
 	}
 
@@ -596,19 +1191,87 @@ public interface Xlsx {
 	 */
 	public static void writeOut(@NotNull final Workbook workbook, @NotNull final String fileName)
 			throws IOException {
+		writeOut(workbook, fileName, new WriteOptions());
+	}
+
+	/**
+	 * Save workbook to file, with options.
+	 * it creates a parent directory, if needed.
+	 * after finished, don't forget closing workbook.
+	 *
+	 * @param workbook workbook
+	 * @param fileName proper file name extension could be appended if needed.
+	 * @param options  options
+	 * @throws IOException couldn't write to
+	 */
+	public static void writeOut(@NotNull final Workbook workbook, @NotNull final String fileName,
+	                            @NotNull final WriteOptions options) throws IOException {
 		final File file;
-		if (workbook instanceof XSSFWorkbook && !fileName.endsWith(".xlsx")) {
+		if ((workbook instanceof XSSFWorkbook || workbook instanceof SXSSFWorkbook)
+				&& !fileName.endsWith(".xlsx")) {
 			file = new File(fileName + ".xlsx");
 		} else if (workbook instanceof HSSFWorkbook && !fileName.endsWith(".xls")) {
 			file = new File(fileName + ".xls");
 		} else {
 			file = new File(fileName);
 		}
-		file.getParentFile().mkdirs();
-
-		try (FileOutputStream outputStream = new FileOutputStream(file)) {
-			workbook.write(outputStream);
+		if (null != file.getParentFile()) {
+			file.getParentFile().mkdirs();
 		}
 
+		writeOut(workbook, file, options);
+	}
+
+	/**
+	 * Save workbook to file on a default executor,
+	 * which runs virtual threads if the runtime has them, or daemon threads.
+	 * The workbook must not be changed until it's completed.
+	 *
+	 * @param workbook workbook
+	 * @param file     file
+	 * @return future, which fails with an IOException if it couldn't write to.
+	 */
+	@NotNull
+	public static CompletableFuture<Void> writeOutAsync(@NotNull final Workbook workbook, @NotNull final File file) {
+		return writeOutAsync(workbook, file, Async.defaultExecutor());
+	}
+
+	/**
+	 * Save workbook to file on an executor.
+	 * The workbook must not be changed until it's completed.
+	 *
+	 * @param workbook workbook
+	 * @param file     file
+	 * @param executor executor
+	 * @return future, which fails with an IOException if it couldn't write to.
+	 */
+	@NotNull
+	public static CompletableFuture<Void> writeOutAsync(@NotNull final Workbook workbook, @NotNull final File file,
+	                                                    @NotNull final Executor executor) {
+		return Async.supply(() -> {
+			writeOut(workbook, file);
+			return null;
+		}, executor);
+	}
+
+	/**
+	 * Write workbook to output stream on an executor.
+	 * The workbook must not be changed until it's completed.
+	 *
+	 * @param workbook     workbook
+	 * @param outputStream output stream, which is not closed
+	 * @param options      options
+	 * @param executor     executor
+	 * @return future, which fails with an IOException if it couldn't write to.
+	 */
+	@NotNull
+	public static CompletableFuture<Void> writeOutAsync(@NotNull final Workbook workbook,
+	                                                    @NotNull final OutputStream outputStream,
+	                                                    @NotNull final WriteOptions options,
+	                                                    @NotNull final Executor executor) {
+		return Async.supply(() -> {
+			writeOut(workbook, outputStream, options);
+			return null;
+		}, executor);
 	}
 }
@@ -0,0 +1,77 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Listener of workbook I/O, cell writes and style creation.
+ * Register one with {@link XlsxMetrics#setListener(XlsxListener)}.
+ * Methods are called on threads doing the work, so they should be thread-safe and quick.
+ * All methods do nothing by default.
+ *
+ * @author Elex
+ * @see XlsxStatistics
+ */
+public interface XlsxListener {
+
+	/**
+	 * A workbook was opened
+	 *
+	 * @param workbook workbook
+	 * @param nanos    time spent
+	 * @param bytes    bytes read, or -1 if unknown
+	 */
+	public default void workbookOpened(@NotNull final Workbook workbook, final long nanos, final long bytes) {
+	}
+
+	/**
+	 * A workbook was written out
+	 *
+	 * @param workbook workbook
+	 * @param nanos    time spent, including zip serialization
+	 * @param bytes    bytes written
+	 */
+	public default void workbookWritten(@NotNull final Workbook workbook, final long nanos, final long bytes) {
+	}
+
+	/**
+	 * Cells were written, by a row writer or a date write.
+	 *
+	 * @param sheet sheet
+	 * @param rows  number of rows, or 0 for a single cell write
+	 * @param cells number of cells
+	 * @param nanos time spent
+	 */
+	public default void cellsWritten(@NotNull final Sheet sheet, final long rows, final long cells, final long nanos) {
+	}
+
+	/**
+	 * A cell style was built by {@link CellStyleBuilder}
+	 *
+	 * @param workbook   workbook
+	 * @param nanos      time spent creating or looking up a style
+	 * @param cellStyles number of cell styles in the workbook
+	 */
+	public default void cellStyleBuilt(@NotNull final Workbook workbook, final long nanos, final int cellStyles) {
+	}
+
+	/**
+	 * A font was built by {@link FontBuilder}
+	 *
+	 * @param workbook workbook
+	 * @param nanos    time spent creating or looking up a font
+	 * @param fonts    number of fonts in the workbook
+	 */
+	public default void fontBuilt(@NotNull final Workbook workbook, final long nanos, final int fonts) {
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Registry of a {@link XlsxListener}.
+ * Without a listener, instrumented methods only read a volatile field, and measure nothing.
+ * <pre>{@code
+ * XlsxStatistics statistics = new XlsxStatistics();
+ * XlsxMetrics.setListener(statistics);
+ * ...
+ * log.info(statistics.toString());
+ * }</pre>
+ *
+ * @author Elex
+ */
+public final class XlsxMetrics {
+	@Nullable
+	private static volatile XlsxListener listener;
+
+	private XlsxMetrics() {
+	}
+
+	/**
+	 * Register a listener, replacing the previous one.
+	 *
+	 * @param listener listener, or null to remove
+	 */
+	public static void setListener(@Nullable final XlsxListener listener) {
+		XlsxMetrics.listener = listener;
+	}
+
+	/**
+	 * Registered listener
+	 *
+	 * @return listener, or null if there's none
+	 */
+	@Nullable
+	public static XlsxListener getListener() {
+		return listener;
+	}
+
+	/**
+	 * Start time, only if a listener is registered.
+	 *
+	 * @return nano time, or 0
+	 */
+	static long start() {
+		return null == listener ? 0 : System.nanoTime();
+	}
+
+	static void opened(@NotNull final Workbook workbook, final long start, final long bytes) {
+		final XlsxListener listener = XlsxMetrics.listener;
+		if (null != listener && 0 != start) {
+			listener.workbookOpened(workbook, System.nanoTime() - start, bytes);
+		}
+	}
+
+	static void written(@NotNull final Workbook workbook, final long start, final long bytes) {
+		final XlsxListener listener = XlsxMetrics.listener;
+		if (null != listener && 0 != start) {
+			listener.workbookWritten(workbook, System.nanoTime() - start, bytes);
+		}
+	}
+
+	static void cellsWritten(@NotNull final Sheet sheet, final long start, final long rows, final long cells) {
+		final XlsxListener listener = XlsxMetrics.listener;
+		if (null != listener && 0 != start) {
+			listener.cellsWritten(sheet, rows, cells, System.nanoTime() - start);
+		}
+	}
+
+	static void cellStyleBuilt(@Nullable final Workbook workbook, final long nanos) {
+		final XlsxListener listener = XlsxMetrics.listener;
+		if (null != listener && null != workbook) {
+			listener.cellStyleBuilt(workbook, nanos, workbook.getNumCellStyles());
+		}
+	}
+
+	static void fontBuilt(@Nullable final Workbook workbook, final long nanos) {
+		final XlsxListener listener = XlsxMetrics.listener;
+		if (null != listener && null != workbook) {
+			listener.fontBuilt(workbook, nanos, workbook.getNumberOfFontsAsInt());
+		}
+	}
+
+	/**
+	 * Elapsed time since a start time
+	 *
+	 * @param start start time from {@link #start()}
+	 * @return nanos, or 0 if not started
+	 */
+	static long elapsed(final long start) {
+		return 0 == start ? 0 : System.nanoTime() - start;
+	}
+}
@@ -0,0 +1,382 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.jetbrains.annotations.NotNull;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Streaming reader of xlsx format.
+ * It walks a sheet row by row with SAX, instead of building a whole workbook in memory,
+ * so memory is bounded by a row and the shared strings.
+ * <pre>{@code
+ * try (XlsxReader reader = XlsxReader.open(file)) {
+ *     reader.read("Sheet1", row -> {
+ *         String name = row.readString(0);
+ *         double price = row.readNumeric(1);
+ *     });
+ * }
+ * }</pre>
+ *
+ * @author Elex
+ */
+public final class XlsxReader implements Closeable {
+	private final OPCPackage pkg;
+	private final XSSFReader reader;
+	private final StringTable strings;
+	private final CellFormats formats;
+	private final boolean date1904;
+	private final List<String> sheetNames;
+	private final Map<String, LazySheet> lazySheets = new HashMap<>();
+
+	private XlsxReader(@NotNull final OPCPackage pkg, final boolean mappedStrings) throws IOException {
+		this.pkg = pkg;
+		this.strings = mappedStrings ? MappedStringTable.spill(pkg) : StringTable.read(pkg);
+		try {
+			this.reader = new XSSFReader(pkg);
+			this.formats = CellFormats.of(reader.getStylesTable());
+			try (InputStream inputStream = reader.getWorkbookData()) {
+				this.date1904 = isDate1904(inputStream);
+			}
+			final List<String> names = new ArrayList<>();
+			final XSSFReader.SheetIterator iterator = sheets();
+			while (iterator.hasNext()) {
+				iterator.next().close();
+				names.add(iterator.getSheetName());
+			}
+			this.sheetNames = Collections.unmodifiableList(names);
+		} catch (OpenXML4JException e) {
+			strings.close();
+			throw new IOException(e);
+		} catch (IOException | RuntimeException e) {
+			strings.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Read the date system from a workbook part
+	 *
+	 * @param inputStream workbook part
+	 * @return true if the workbook is in the 1904 date system
+	 * @throws IOException if it can not be read
+	 */
+	private static boolean isDate1904(@NotNull final InputStream inputStream) throws IOException {
+		final boolean[] date1904 = {false};
+		XmlParsers.parse(inputStream, new DefaultHandler() {
+			@Override
+			public void startElement(final String uri, final String localName, final String qName,
+			                         final Attributes attributes) {
+				if ("workbookPr".equals(XmlParsers.localName(qName))) {
+					final String value = attributes.getValue("date1904");
+					date1904[0] = "1".equals(value) || "true".equals(value);
+				}
+			}
+		});
+		return date1904[0];
+	}
+
+	/**
+	 * Open a xlsx file
+	 *
+	 * @param file file
+	 * @return reader
+	 * @throws IOException if it can't be read from a file
+	 */
+	@NotNull
+	public static XlsxReader open(@NotNull final File file) throws IOException {
+		return open(file, false);
+	}
+
+	/**
+	 * Open a xlsx file.
+	 * With mapped strings, the shared strings are kept as UTF-8 bytes in a memory-mapped temp file
+	 * instead of the heap, and only recently used ones are decoded.
+	 * It makes files with millions of unique strings readable with a small heap,
+	 * at the cost of writing a temp file while opening.
+	 *
+	 * @param file          file
+	 * @param mappedStrings keep shared strings out of the heap
+	 * @return reader
+	 * @throws IOException if it can't be read from a file
+	 */
+	@NotNull
+	public static XlsxReader open(@NotNull final File file, final boolean mappedStrings) throws IOException {
+		final OPCPackage pkg;
+		try {
+			pkg = OPCPackage.open(file, PackageAccess.READ);
+		} catch (InvalidFormatException e) {
+			throw new IOException(e);
+		}
+		return open(pkg, mappedStrings);
+	}
+
+	/**
+	 * Open a xlsx file
+	 *
+	 * @param file a file path
+	 * @return reader
+	 * @throws IOException if it can't be read from a file
+	 */
+	@NotNull
+	public static XlsxReader open(@NotNull final String file) throws IOException {
+		return open(new File(file));
+	}
+
+	/**
+	 * Open xlsx format from input stream.
+	 * the package is buffered in memory, so prefer {@link #open(File)}.
+	 *
+	 * @param inputStream input stream
+	 * @return reader
+	 * @throws IOException if it can not be read
+	 */
+	@NotNull
+	public static XlsxReader open(@NotNull final InputStream inputStream) throws IOException {
+		final OPCPackage pkg;
+		try {
+			pkg = OPCPackage.open(inputStream);
+		} catch (InvalidFormatException e) {
+			throw new IOException(e);
+		}
+		return open(pkg, false);
+	}
+
+	@NotNull
+	private static XlsxReader open(@NotNull final OPCPackage pkg, final boolean mappedStrings) throws IOException {
+		try {
+			return new XlsxReader(pkg, mappedStrings);
+		} catch (IOException | RuntimeException e) {
+			pkg.revert();
+			throw e;
+		}
+	}
+
+	@NotNull
+	private XSSFReader.SheetIterator sheets() throws IOException {
+		try {
+			return (XSSFReader.SheetIterator) reader.getSheetsData();
+		} catch (InvalidFormatException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Names of sheets
+	 *
+	 * @return sheet names in order
+	 */
+	@NotNull
+	public List<String> getSheetNames() {
+		return sheetNames;
+	}
+
+	/**
+	 * Read rows of a named sheet
+	 *
+	 * @param name    name of a sheet
+	 * @param handler row callback
+	 * @throws IOException           if it can not be read
+	 * @throws IllegalStateException Couldn't find a sheet with that name.
+	 */
+	public void read(@NotNull final String name, @NotNull final RowHandler handler)
+			throws IOException, IllegalStateException {
+		final int index = sheetNames.indexOf(name);
+		if (index < 0) {
+			throw new IllegalStateException("Couldn't find a sheet with that name.");
+		}
+		read(index, handler);
+	}
+
+	/**
+	 * Read rows of an n-th sheet
+	 *
+	 * @param index   index of a sheet
+	 * @param handler row callback
+	 * @throws IOException           if it can not be read
+	 * @throws IllegalStateException Couldn't find a sheet at that index.
+	 */
+	public void read(final int index, @NotNull final RowHandler handler)
+			throws IOException, IllegalStateException {
+		try (InputStream inputStream = openSheet(index)) {
+			XmlParsers.parse(inputStream, new SheetHandler(strings, formats, date1904, handler));
+		}
+	}
+
+	@NotNull
+	private InputStream openSheet(final int index) throws IOException, IllegalStateException {
+		final XSSFReader.SheetIterator iterator = sheets();
+		for (int i = 0; iterator.hasNext(); i++) {
+			final InputStream inputStream = iterator.next();
+			if (i == index) {
+				return inputStream;
+			}
+			inputStream.close();
+		}
+		throw new IllegalStateException("Couldn't find a sheet at that index.");
+	}
+
+	/**
+	 * Get a named sheet for random access to its rows.
+	 * The sheet is indexed on the first call, and rows are parsed when accessed.
+	 * It's closed with the reader.
+	 *
+	 * @param name name of a sheet
+	 * @return sheet
+	 * @throws IOException           if it can not be read
+	 * @throws IllegalStateException Couldn't find a sheet with that name.
+	 */
+	@NotNull
+	public LazySheet getSheet(@NotNull final String name) throws IOException, IllegalStateException {
+		final int index = sheetNames.indexOf(name);
+		if (index < 0) {
+			throw new IllegalStateException("Couldn't find a sheet with that name.");
+		}
+		synchronized (lazySheets) {
+			LazySheet sheet = lazySheets.get(name);
+			if (null == sheet) {
+				try (InputStream inputStream = openSheet(index)) {
+					sheet = LazySheet.index(name, inputStream, strings, formats, date1904);
+				}
+				lazySheets.put(name, sheet);
+			}
+			return sheet;
+		}
+	}
+
+	/**
+	 * Read rows of all sheets in parallel, on the common pool.
+	 *
+	 * @param handlers row callback for a sheet name, or null to skip the sheet.
+	 * @throws IOException if it can not be read
+	 * @see #readAll(Function, Executor)
+	 */
+	public void readAll(@NotNull final Function<String, RowHandler> handlers) throws IOException {
+		readAll(handlers, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Read rows of all sheets in parallel.
+	 * The shared strings and styles are parsed once when opened and shared by all sheets,
+	 * then each sheet is parsed on its own task.
+	 * A handler is called on a worker thread, but only for rows of its own sheet,
+	 * so it needs not be thread-safe unless it's shared by sheets.
+	 * If a sheet fails, the other sheets stop at their next row,
+	 * and the first failure is thrown after all tasks are done.
+	 *
+	 * @param handlers row callback for a sheet name, or null to skip the sheet.
+	 *                 it's called on the calling thread.
+	 * @param executor executor which parses sheets
+	 * @throws IOException if it can not be read
+	 */
+	public void readAll(@NotNull final Function<String, RowHandler> handlers, @NotNull final Executor executor)
+			throws IOException {
+		final List<CompletableFuture<Void>> futures = new ArrayList<>();
+		final AtomicBoolean failed = new AtomicBoolean();
+		final XSSFReader.SheetIterator iterator = sheets();
+		InputStream unconsumed = null;
+		try {
+			while (iterator.hasNext()) {
+				unconsumed = iterator.next();
+				final RowHandler handler = handlers.apply(iterator.getSheetName());
+				final InputStream inputStream = unconsumed;
+				if (null == handler) {
+					unconsumed = null;
+					inputStream.close();
+					continue;
+				}
+				futures.add(CompletableFuture.runAsync(() -> {
+					try (InputStream in = inputStream) {
+						if (failed.get()) return;
+						XmlParsers.parse(in, new SheetHandler(strings, formats, date1904, failed, handler));
+					} catch (IOException e) {
+						// only the first failure is reported, others are sheets stopped by it
+						if (!failed.getAndSet(true)) {
+							throw new UncheckedIOException(e);
+						}
+					} catch (RuntimeException | Error e) {
+						if (!failed.getAndSet(true)) {
+							throw e;
+						}
+					}
+				}, executor));
+				unconsumed = null;
+			}
+		} catch (IOException | RuntimeException | Error e) {
+			failed.set(true);
+			throw e;
+		} finally {
+			if (null != unconsumed) {
+				try {
+					unconsumed.close();
+				} catch (IOException ignore) {
+				}
+			}
+			// sheet streams must not be read after this returns, so wait for all tasks
+			for (final CompletableFuture<Void> future : futures) {
+				try {
+					future.join();
+				} catch (CompletionException ignore) {
+				}
+			}
+		}
+		for (final CompletableFuture<Void> future : futures) {
+			try {
+				future.join();
+			} catch (CompletionException e) {
+				final Throwable cause = e.getCause();
+				if (cause instanceof UncheckedIOException) {
+					throw ((UncheckedIOException) cause).getCause();
+				}
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw new IOException(cause);
+			}
+		}
+	}
+
+	/**
+	 * Close the package, without saving anything.
+	 */
+	@Override
+	public void close() {
+		synchronized (lazySheets) {
+			for (final LazySheet sheet : lazySheets.values()) {
+				sheet.close();
+			}
+			lazySheets.clear();
+		}
+		strings.close();
+		pkg.revert();
+	}
+}
@@ -0,0 +1,214 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Listener which sums up everything, without any metrics library.
+ *
+ * @author Elex
+ */
+public final class XlsxStatistics implements XlsxListener {
+	private final LongAdder opens = new LongAdder();
+	private final LongAdder openNanos = new LongAdder();
+	private final LongAdder bytesRead = new LongAdder();
+	private final LongAdder writes = new LongAdder();
+	private final LongAdder writeNanos = new LongAdder();
+	private final LongAdder bytesWritten = new LongAdder();
+	private final LongAdder rows = new LongAdder();
+	private final LongAdder cells = new LongAdder();
+	private final LongAdder cellNanos = new LongAdder();
+	private final LongAdder cellStylesBuilt = new LongAdder();
+	private final LongAdder cellStyleNanos = new LongAdder();
+	private final LongAdder fontsBuilt = new LongAdder();
+	private final LongAdder fontNanos = new LongAdder();
+	private final LongAccumulator maxCellStyles = new LongAccumulator(Math::max, 0);
+	private final LongAccumulator maxFonts = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * Statistics
+	 */
+	public XlsxStatistics() {
+	}
+
+	@Override
+	public void workbookOpened(@NotNull final Workbook workbook, final long nanos, final long bytes) {
+		opens.increment();
+		openNanos.add(nanos);
+		if (bytes > 0) {
+			bytesRead.add(bytes);
+		}
+	}
+
+	@Override
+	public void workbookWritten(@NotNull final Workbook workbook, final long nanos, final long bytes) {
+		writes.increment();
+		writeNanos.add(nanos);
+		bytesWritten.add(bytes);
+	}
+
+	@Override
+	public void cellsWritten(@NotNull final Sheet sheet, final long rows, final long cells, final long nanos) {
+		this.rows.add(rows);
+		this.cells.add(cells);
+		cellNanos.add(nanos);
+	}
+
+	@Override
+	public void cellStyleBuilt(@NotNull final Workbook workbook, final long nanos, final int cellStyles) {
+		cellStylesBuilt.increment();
+		cellStyleNanos.add(nanos);
+		maxCellStyles.accumulate(cellStyles);
+	}
+
+	@Override
+	public void fontBuilt(@NotNull final Workbook workbook, final long nanos, final int fonts) {
+		fontsBuilt.increment();
+		fontNanos.add(nanos);
+		maxFonts.accumulate(fonts);
+	}
+
+	/**
+	 * @return number of opened workbooks
+	 */
+	public long getOpens() {
+		return opens.sum();
+	}
+
+	/**
+	 * @return time spent opening workbooks
+	 */
+	public long getOpenNanos() {
+		return openNanos.sum();
+	}
+
+	/**
+	 * @return bytes read, where known
+	 */
+	public long getBytesRead() {
+		return bytesRead.sum();
+	}
+
+	/**
+	 * @return number of written workbooks
+	 */
+	public long getWrites() {
+		return writes.sum();
+	}
+
+	/**
+	 * @return time spent writing out workbooks
+	 */
+	public long getWriteNanos() {
+		return writeNanos.sum();
+	}
+
+	/**
+	 * @return bytes written
+	 */
+	public long getBytesWritten() {
+		return bytesWritten.sum();
+	}
+
+	/**
+	 * @return rows written by row writers
+	 */
+	public long getRows() {
+		return rows.sum();
+	}
+
+	/**
+	 * @return cells written by row writers and date writes
+	 */
+	public long getCells() {
+		return cells.sum();
+	}
+
+	/**
+	 * @return time spent writing cells
+	 */
+	public long getCellNanos() {
+		return cellNanos.sum();
+	}
+
+	/**
+	 * @return number of built cell styles, including shared ones
+	 */
+	public long getCellStylesBuilt() {
+		return cellStylesBuilt.sum();
+	}
+
+	/**
+	 * @return time spent building cell styles
+	 */
+	public long getCellStyleNanos() {
+		return cellStyleNanos.sum();
+	}
+
+	/**
+	 * @return number of built fonts, including shared ones
+	 */
+	public long getFontsBuilt() {
+		return fontsBuilt.sum();
+	}
+
+	/**
+	 * @return time spent building fonts
+	 */
+	public long getFontNanos() {
+		return fontNanos.sum();
+	}
+
+	/**
+	 * @return the largest style table seen
+	 */
+	public long getMaxCellStyles() {
+		return maxCellStyles.get();
+	}
+
+	/**
+	 * @return the largest font table seen
+	 */
+	public long getMaxFonts() {
+		return maxFonts.get();
+	}
+
+	/**
+	 * Clear all
+	 */
+	public void reset() {
+		for (final LongAdder adder : new LongAdder[]{opens, openNanos, bytesRead, writes, writeNanos, bytesWritten,
+				rows, cells, cellNanos, cellStylesBuilt, cellStyleNanos, fontsBuilt, fontNanos}) {
+			adder.reset();
+		}
+		maxCellStyles.reset();
+		maxFonts.reset();
+	}
+
+	private static long millis(final long nanos) {
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+
+	@Override
+	public String toString() {
+		return "opened " + getOpens() + " workbooks (" + getBytesRead() + " bytes, " + millis(getOpenNanos()) + " ms), "
+				+ "wrote " + getWrites() + " workbooks (" + getBytesWritten() + " bytes, " + millis(getWriteNanos()) + " ms), "
+				+ getRows() + " rows and " + getCells() + " cells (" + millis(getCellNanos()) + " ms), "
+				+ getCellStylesBuilt() + " cell styles (" + millis(getCellStyleNanos()) + " ms, max " + getMaxCellStyles() + "), "
+				+ getFontsBuilt() + " fonts (" + millis(getFontNanos()) + " ms, max " + getMaxFonts() + ")";
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.jetbrains.annotations.NotNull;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * SAX parsing of the package parts.
+ * Parsers are not namespace aware, so element names are compared with {@link #localName(String)}.
+ *
+ * @author Elex
+ */
+final class XmlParsers {
+	private static final SAXParserFactory FACTORY = newFactory();
+
+	private XmlParsers() {
+	}
+
+	@NotNull
+	private static SAXParserFactory newFactory() {
+		final SAXParserFactory factory = SAXParserFactory.newInstance();
+		factory.setNamespaceAware(false);
+		factory.setValidating(false);
+		try {
+			factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+			factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+		} catch (Exception ignore) {
+		}
+		return factory;
+	}
+
+	/**
+	 * Parse a xml stream
+	 *
+	 * @param inputStream xml
+	 * @param handler     handler
+	 * @throws IOException if it can not be read or parsed
+	 */
+	static void parse(@NotNull final InputStream inputStream, @NotNull final DefaultHandler handler)
+			throws IOException {
+		final SAXParser parser;
+		try {
+			synchronized (FACTORY) {
+				parser = FACTORY.newSAXParser();
+			}
+			parser.parse(inputStream, handler);
+		} catch (ParserConfigurationException | SAXException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Element name without a namespace prefix
+	 *
+	 * @param qName qualified name
+	 * @return local name
+	 */
+	@NotNull
+	static String localName(@NotNull final String qName) {
+		final int i = qName.indexOf(':');
+		return i < 0 ? qName : qName.substring(i + 1);
+	}
+}
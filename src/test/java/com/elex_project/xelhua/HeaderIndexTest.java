@@ -0,0 +1,57 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static com.elex_project.xelhua.Xlsx.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeaderIndexTest {
+
+	@Test
+	void lookup() throws IOException {
+		Workbook workbook = createWorkbook();
+		Sheet sheet = getSheet(workbook, "Header");
+		Row header = getRow(sheet, 0);
+		write(getCell(header, 0), "Name");
+		write(getCell(header, 1), " Price ");
+		write(getCell(header, 3), 2021);
+		write(getCell(header, 4), "Name");
+
+		Row row = getRow(sheet, 1);
+		write(getCell(row, 0), "Apple");
+		write(getCell(row, 1), 1.5);
+
+		HeaderIndex exact = new HeaderIndex(header);
+		assertEquals(0, exact.getColumn("Name"));
+		assertEquals(-1, exact.getColumn("name"));
+		assertEquals(-1, exact.getColumn("Price"));
+		assertEquals(3, exact.getColumn("2021.0"));
+		assertEquals(3, exact.size());
+
+		HeaderIndex relaxed = new HeaderIndex(header, true, true);
+		assertEquals(0, relaxed.getColumn("NAME"));
+		assertEquals(1, relaxed.getColumn("price"));
+		assertEquals(1, relaxed.getColumn("  PRICE"));
+
+		assertEquals("Apple", readString(row, "name", relaxed));
+		assertEquals(1.5, readNumeric(row, "Price", relaxed));
+		assertEquals(getCell(row, "Name", header).getColumnIndex(), getCell(row, "Name", exact).getColumnIndex());
+		assertNull(getCellOrNull(row, "2021.0", exact));
+		assertThrows(IllegalStateException.class, () -> getCell(row, "Unknown", exact));
+		workbook.close();
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.elex_project.xelhua.Xlsx.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SheetMapperTest {
+
+	static class Person {
+		@SheetColumn(value = "Name", order = 0)
+		String name;
+		@SheetColumn(value = "Birthday", order = 2, format = "yyyy/MM/dd")
+		LocalDate birthday;
+		@SheetColumn(value = "Age", order = 1)
+		int age;
+		@SheetColumn("Score")
+		Double score;
+		String ignored = "x";
+
+		Person() {
+		}
+
+		Person(String name, int age, LocalDate birthday, Double score) {
+			this.name = name;
+			this.age = age;
+			this.birthday = birthday;
+			this.score = score;
+		}
+	}
+
+	private final List<Person> people = Arrays.asList(
+			new Person("Alice", 30, LocalDate.of(1991, 3, 1), 9.5),
+			new Person("Bob", 25, LocalDate.of(1996, 7, 12), null));
+
+	@Test
+	void annotated() throws IOException {
+		SheetMapper<Person> mapper = SheetMapper.of(Person.class);
+		assertEquals(Arrays.asList("Name", "Age", "Birthday", "Score"), mapper.getColumnNames());
+
+		Workbook workbook = createWorkbook();
+		Sheet sheet = getSheet(workbook, "People");
+		assertEquals(3, mapper.write(sheet, people));
+		assertEquals("Age", readString(getCell(sheet, 0, 1)));
+
+		List<Person> read = mapper.read(sheet);
+		assertEquals(2, read.size());
+		assertEquals("Bob", read.get(1).name);
+		assertEquals(25, read.get(1).age);
+		assertEquals(LocalDate.of(1996, 7, 12), read.get(1).birthday);
+		assertNull(read.get(1).score);
+		assertEquals(9.5, read.get(0).score);
+		workbook.close();
+	}
+
+	@Test
+	void formulas() throws IOException {
+		SheetMapper<Person> mapper = SheetMapper.<Person>builder(Person::new)
+				.string("Name", p -> p.name, (p, v) -> p.name = v)
+				.build();
+
+		Workbook workbook = createWorkbook();
+		Sheet sheet = getSheet(workbook, "People");
+		write(getCell(sheet, 0, 0), "Name");
+		writeFormula(getCell(sheet, 1, 0), "1+2");
+		writeFormula(getCell(sheet, 2, 0), "1=1");
+		writeFormula(getCell(sheet, 3, 0), "1/0");
+		evaluateAll(workbook);
+
+		// 수식이 아니라 캐시된 결과를 읽는다
+		List<Person> read = mapper.read(sheet);
+		assertEquals("3", read.get(0).name);
+		assertEquals("TRUE", read.get(1).name);
+		assertEquals("#DIV/0!", read.get(2).name);
+		workbook.close();
+	}
+
+	@Test
+	void streaming() throws IOException {
+		SheetMapper<Person> mapper = SheetMapper.<Person>builder(Person::new)
+				.string("Name", p -> p.name, (p, v) -> p.name = v)
+				.numeric("Age", p -> p.age, (p, v) -> p.age = (int) v)
+				.date("Birthday", "yyyy-MM-dd", p -> p.birthday, null)
+				.build();
+
+		File file = new File("build/unit-tests/mapper.xlsx");
+		file.getParentFile().mkdirs();
+		Workbook workbook = createStreamingWorkbook(10, false);
+		mapper.write(getSheet(workbook, "People"), people);
+		writeOut(workbook, file);
+		close(workbook);
+
+		List<Person> read = new ArrayList<>();
+		try (XlsxReader reader = XlsxReader.open(file)) {
+			mapper.read(reader, "People", read::add);
+		}
+		assertEquals(2, read.size());
+		assertEquals("Alice", read.get(0).name);
+		assertEquals(30, read.get(0).age);
+		assertNull(read.get(0).birthday);
+	}
+}
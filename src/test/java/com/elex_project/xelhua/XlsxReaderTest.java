@@ -0,0 +1,362 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright (c) 2021, Elex
+ * All rights reserved.
+ */
+
+package com.elex_project.xelhua;
+
+import org.apache.poi.hssf.record.DateWindow1904Record;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.elex_project.xelhua.Xlsx.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class XlsxReaderTest {
+	private static final LocalDate DATE = LocalDate.of(2021, 1, 15);
+	private static File file;
+
+	@BeforeAll
+	static void prepare() throws IOException {
+		file = new File("build/unit-tests/reader.xlsx");
+		file.getParentFile().mkdirs();
+
+		Workbook workbook = createWorkbook();
+		Sheet sheet = getSheet(workbook, "Data");
+		write(getCell(sheet, 0, 0), "Name");
+		write(getCell(sheet, 0, 1), "Price");
+		write(getCell(sheet, 0, 2), "Date");
+		write(getCell(sheet, 0, 3), "Sold");
+		for (int i = 1; i <= 10; i++) {
+			write(getCell(sheet, i, 0), "Item " + i);
+			write(getCell(sheet, i, 1), i * 1.5);
+			write(getCell(sheet, i, 2), DATE.plusDays(i), workbook);
+			write(getCell(sheet, i, 3), i % 2 == 0);
+		}
+		getSheet(workbook, "Empty");
+		writeOut(workbook, file);
+		workbook.close();
+	}
+
+	@Test
+	void read() throws IOException {
+		final List<RowView> rows = new ArrayList<>();
+		try (XlsxReader reader = XlsxReader.open(file)) {
+			assertEquals(2, reader.getSheetNames().size());
+			assertEquals("Data", reader.getSheetNames().get(0));
+
+			reader.read("Data", row -> rows.add(row.copy()));
+		}
+		assertEquals(11, rows.size());
+		assertEquals("Price", rows.get(0).readString(1));
+
+		final RowView row = rows.get(3);
+		assertEquals(3, row.getRowNum());
+		assertEquals(4, row.getLastCellNum());
+		assertEquals("Item 3", row.readString(0));
+		assertEquals(4.5, row.readNumeric(1));
+		assertTrue(row.isDateFormatted(2));
+		assertEquals(DATE.plusDays(3), row.readLocalDate(2));
+		assertFalse(row.readBoolean(3));
+		assertEquals(CellType.BLANK, row.getCellType(10));
+		assertThrows(IllegalStateException.class, () -> row.readNumeric(0));
+	}
+
+	@Test
+	void date1904() throws IOException {
+		final File xlsx = new File(file.getParentFile(), "date1904.xlsx");
+		final XSSFWorkbook workbook = new XSSFWorkbook();
+		workbook.getCTWorkbook().getWorkbookPr().setDate1904(true);
+		write(getCell(getSheet(workbook, "Data"), 0, 0), DATE, workbook);
+		writeOut(workbook, xlsx);
+		workbook.close();
+
+		// 1904 날짜 체계의 일련번호는 1462일 작다
+		final ColumnarReader columnarReader = new ColumnarReader().column(0, ColumnType.DATE);
+		try (XlsxReader reader = XlsxReader.open(xlsx)) {
+			reader.read("Data", row -> assertEquals(DATE, row.readLocalDate(0)));
+			assertEquals(DATE, reader.getSheet("Data").getRowOrNull(0).readLocalDate(0));
+			assertEquals(DATE.toEpochDay(), columnarReader.read(reader, "Data").getEpochDays(0)[0]);
+		}
+		final Workbook opened = getWorkbook(xlsx, true);
+		assertEquals(DATE.toEpochDay(), columnarReader.read(getSheet(opened, "Data")).getEpochDays(0)[0]);
+		opened.close();
+	}
+
+	@Test
+	void missingSheet() throws IOException {
+		try (XlsxReader reader = XlsxReader.open(file)) {
+			assertThrows(IllegalStateException.class, () -> reader.read("None", row -> {
+			}));
+			reader.read(1, row -> fail("Sheet should be empty"));
+		}
+	}
+
+	@Test
+	void columnar() throws IOException {
+		final ColumnarReader columnarReader = new ColumnarReader()
+				.string("Name")
+				.numeric("Price")
+				.date("Date")
+				.bool("Sold");
+		final ColumnarTable table;
+		try (XlsxReader reader = XlsxReader.open(file)) {
+			table = columnarReader.read(reader, "Data");
+		}
+		assertEquals(10, table.getRowCount());
+		assertEquals(4, table.getColumnCount());
+		assertEquals(1, table.getColumn("Price"));
+		assertEquals("Item 3", table.getString(0, 2));
+		assertEquals(4.5, table.getNumbers(1)[2]);
+		assertEquals(DATE.plusDays(3).toEpochDay(), table.getEpochDays(2)[2]);
+		assertTrue(table.getBooleans(3)[1]);
+		assertThrows(IllegalStateException.class, () -> table.getNumbers(0));
+
+		final Workbook workbook = getWorkbook(file.getPath());
+		final ColumnarTable same = columnarReader.read(getSheet(workbook, "Data"));
+		workbook.close();
+		assertArrayEquals(table.getNumbers(1), same.getNumbers(1));
+		assertArrayEquals(table.getEpochDays(2), same.getEpochDays(2));
+	}
+
+	@Test
+	void readAll() throws IOException {
+		final Map<String, List<RowView>> sheets = new ConcurrentHashMap<>();
+		try (XlsxReader reader = XlsxReader.open(file)) {
+			reader.readAll(name -> {
+				final List<RowView> rows = new ArrayList<>();
+				sheets.put(name, rows);
+				return row -> rows.add(row.copy());
+			});
+			assertEquals(11, sheets.get("Data").size());
+			assertTrue(sheets.get("Empty").isEmpty());
+
+			final Map<String, ColumnarTable> tables = new ColumnarReader()
+					.columns(0, 1, ColumnType.STRING)
+					.header(0)
+					.readAll(reader);
+			assertEquals(Arrays.asList("Data", "Empty"), new ArrayList<>(tables.keySet()));
+			assertEquals("Item 10", tables.get("Data").getString(0, 9));
+			assertEquals(0, tables.get("Empty").getRowCount());
+
+			assertThrows(IllegalStateException.class, () -> reader.readAll(name -> row -> {
+				throw new IllegalStateException("Failed");
+			}));
+
+			// 핸들러를 만들다 실패하면 이미 시작한 시트도 멈추고, 끝날 때까지 기다린다
+			final List<Integer> rows = new CopyOnWriteArrayList<>();
+			assertThrows(IllegalArgumentException.class, () -> reader.readAll(name -> {
+				if ("Empty".equals(name)) {
+					throw new IllegalArgumentException("Failed");
+				}
+				return row -> {
+					rows.add(row.getRowNum());
+					try {
+						Thread.sleep(20);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				};
+			}));
+			final int read = rows.size();
+			assertTrue(read < 11);
+			try {
+				Thread.sleep(100);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			assertEquals(read, rows.size());
+		}
+	}
+
+	@Test
+	void mappedStrings() throws IOException {
+		final List<String> names = new ArrayList<>();
+		try (XlsxReader reader = XlsxReader.open(file, true)) {
+			reader.read("Data", row -> names.add(row.readString(0)));
+			reader.read("Data", row -> assertEquals(names.get(row.getRowNum()), row.readString(0)));
+		}
+		assertEquals(11, names.size());
+		assertEquals("Name", names.get(0));
+		assertEquals("Item 10", names.get(10));
+	}
+
+	@Test
+	void lazySheet() throws IOException {
+		try (XlsxReader reader = XlsxReader.open(file)) {
+			final LazySheet sheet = reader.getSheet("Data");
+			assertSame(sheet, reader.getSheet("Data"));
+			assertEquals(11, sheet.getPhysicalNumberOfRows());
+			assertEquals(0, sheet.getFirstRowNum());
+			assertEquals(10, sheet.getLastRowNum());
+
+			final RowView row = sheet.getRowOrNull(7);
+			assertNotNull(row);
+			assertEquals(7, row.getRowNum());
+			assertEquals("Item 7", row.readString(0));
+			assertEquals(DATE.plusDays(7), row.readLocalDate(2));
+			assertSame(row, sheet.getRowOrNull(7));
+			assertNull(sheet.getRowOrNull(11));
+
+			final List<String> names = new ArrayList<>();
+			sheet.read(9, 20, r -> names.add(r.readString(0)));
+			assertEquals(Arrays.asList("Item 9", "Item 10"), names);
+
+			assertEquals(-1, reader.getSheet("Empty").getLastRowNum());
+			assertThrows(IllegalStateException.class, () -> reader.getSheet("None"));
+		}
+	}
+
+	@Test
+	void lazySheetMarkup() throws IOException {
+		final String xml = "<worksheet><sheetData>"
+				+ "<row r=\"1\" x:note=\"a>b\" y='c>\"d'><c r=\"A1\" t=\"inlineStr\"><is><t>one</t></is></c></row>"
+				+ "<!-- <row r=\"2\"><c r=\"A2\"><v>2</v></c></row> -->"
+				+ "<row r=\"3\"><c r=\"A3\" t=\"inlineStr\"><is><t><![CDATA[<row r=\"4\">]]></t></is></c></row>"
+				+ "<row r=\"5\"><c r=\"A5\" s=\"0\"/></row>"
+				+ "</sheetData></worksheet>";
+		final StringTable strings = new StringTable() {
+			@NotNull
+			@Override
+			public String get(final int index) {
+				throw new IndexOutOfBoundsException();
+			}
+
+			@Override
+			public int size() {
+				return 0;
+			}
+		};
+		final LazySheet sheet = LazySheet.index("Markup", new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)),
+				strings, CellFormats.of(null), false);
+		// 속성 값의 '>', 주석, CDATA 안의 태그는 행이 아니다
+		assertEquals(3, sheet.getPhysicalNumberOfRows());
+		assertEquals("one", sheet.getRowOrNull(0).readString(0));
+		assertNull(sheet.getRowOrNull(1));
+		assertEquals("<row r=\"4\">", sheet.getRowOrNull(2).readString(0));
+		assertNull(sheet.getRowOrNull(4));
+		sheet.close();
+		// 셀이 없는 행도 캐시되어 다시 읽지 않는다
+		assertNull(sheet.getRowOrNull(4));
+	}
+
+	@Test
+	void readXls() throws IOException {
+		final File xls = new File(file.getParentFile(), "reader.xls");
+		Workbook workbook = new HSSFWorkbook();
+		getSheet(workbook, "Empty");
+		Sheet sheet = getSheet(workbook, "Data");
+		for (int i = 0; i < 10; i++) {
+			write(getCell(sheet, i, 0), "Item " + i);
+			write(getCell(sheet, i, 1), i * 1.5);
+			write(getCell(sheet, i, 2), DATE.plusDays(i), workbook);
+			write(getCell(sheet, i, 3), i % 2 == 0);
+			writeFormula(getCell(sheet, i, 4), "A" + (i + 1) + "&\"!\"");
+		}
+		evaluateAll(workbook);
+		writeOut(workbook, xls);
+		workbook.close();
+
+		final List<RowView> rows = new ArrayList<>();
+		try (XlsReader reader = XlsReader.open(xls)) {
+			assertEquals(Arrays.asList("Empty", "Data"), reader.getSheetNames());
+			reader.read("Data", row -> rows.add(row.copy()));
+			reader.read(0, row -> fail("Empty sheet"));
+			assertThrows(IllegalStateException.class, () -> reader.read("None", row -> {
+			}));
+		}
+		assertEquals(10, rows.size());
+		final RowView row = rows.get(3);
+		assertEquals(3, row.getRowNum());
+		assertEquals("Item 3", row.readString(0));
+		assertEquals(4.5, row.readNumeric(1));
+		assertTrue(row.isDateFormatted(2));
+		assertEquals(DATE.plusDays(3), row.readLocalDate(2));
+		assertFalse(row.readBoolean(3));
+		assertEquals("Item 3!", row.readString(4));
+	}
+
+	@Test
+	void readXls1904() throws IOException {
+		final File xls = new File(file.getParentFile(), "date1904.xls");
+		final HSSFWorkbook created = new HSSFWorkbook();
+		getSheet(created, "Data");
+		((DateWindow1904Record) created.getInternalWorkbook().findFirstRecordBySid(DateWindow1904Record.sid))
+				.setWindowing((short) 1);
+		writeOut(created, xls);
+		created.close();
+		// 다시 열어야 1904 날짜 체계로 쓴다
+		final Workbook workbook = getWorkbook(xls);
+		write(getCell(getSheet(workbook, "Data"), 0, 0), DATE, workbook);
+		writeOut(workbook, xls);
+		workbook.close();
+
+		try (XlsReader reader = XlsReader.open(xls)) {
+			reader.read("Data", row -> assertEquals(DATE, row.readLocalDate(0)));
+		}
+		final StringWriter writer = new StringWriter();
+		CsvConverter.toCsv(xls, "Data", writer, CsvOptions.csv());
+		assertEquals(DATE.toString(), writer.toString().trim());
+	}
+
+	@Test
+	void csv() throws IOException {
+		final Path csv = new File(file.getParentFile(), "reader.csv").toPath();
+		CsvConverter.toCsv(file, "Data", csv, CsvOptions.csv());
+		final List<String> lines = Files.readAllLines(csv, StandardCharsets.UTF_8);
+		assertEquals(11, lines.size());
+		assertEquals("Name,Price,Date,Sold", lines.get(0));
+		assertEquals("Item 3,4.5,2021-01-18,FALSE", lines.get(3));
+		assertEquals("Item 2,3,2021-01-17,TRUE", lines.get(2));
+
+		final File xlsx = new File(file.getParentFile(), "csv.xlsx");
+		assertEquals(11, CsvConverter.fromCsv(csv, xlsx, "Imported", CsvOptions.csv()));
+		try (XlsxReader reader = XlsxReader.open(xlsx)) {
+			final List<RowView> rows = new ArrayList<>();
+			reader.read("Imported", row -> rows.add(row.copy()));
+			assertEquals("Price", rows.get(0).readString(1));
+			assertEquals(4.5, rows.get(3).readNumeric(1));
+			assertEquals(DATE.plusDays(3), rows.get(3).readLocalDate(2));
+			assertFalse(rows.get(3).readBoolean(3));
+		}
+
+		final StringWriter writer = new StringWriter();
+		final Workbook workbook = createWorkbook();
+		final Sheet sheet = getSheet(workbook, "Quoted");
+		CsvConverter.fromCsv(new StringReader("a\t\"b\"\"c\"\n\n007\t\"x\ty\"\n"), sheet, CsvOptions.tsv().inferTypes(false));
+		assertEquals("b\"c", readString(getCell(sheet, 0, 1)));
+		assertEquals("007", readString(getCell(sheet, 2, 0)));
+		assertEquals("x\ty", readString(getCell(sheet, 2, 1)));
+		workbook.close();
+		try (CsvWriter csvWriter = new CsvWriter(writer, CsvOptions.tsv().lineSeparator("\n"))) {
+			csvWriter.writeRecord("a", "x\ty", null, "q\"");
+		}
+		assertEquals("a\t\"x\ty\"\t\t\"q\"\"\"\n", writer.toString());
+	}
+}
@@ -9,16 +9,31 @@
 
 package com.elex_project.xelhua;
 
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
 import static com.elex_project.xelhua.Xlsx.*;
+import static org.junit.jupiter.api.Assertions.*;
 
 class XlsxTest {
 	private static File outFile1;
@@ -81,4 +96,558 @@ class XlsxTest {
 		}
 
 	}
-}
\ No newline at end of file
+
+	@Test
+	void streaming() throws IOException {
+		SXSSFWorkbook workbook = createStreamingWorkbook(10, true);
+		Sheet sheet = getSheet(workbook, "Stream");
+		trackWidth(sheet);
+
+		for (int i = 0; i < 100; i++) {
+			write(getCell(sheet, i, 0), "Row " + i);
+			write(getCell(sheet, i, 1), i);
+		}
+		// 이미 디스크로 내보낸 행
+		assertThrows(IllegalStateException.class, () -> getRow(sheet, 0));
+		assertNotNull(getRowOrNull(sheet, 99));
+
+		autoWidth(sheet);
+		writeOut(workbook, "build/unit-tests/test2");
+		close(workbook);
+
+		assertTrue(new File("build/unit-tests/test2.xlsx").exists());
+	}
+
+	@Test
+	void dateStyles() throws IOException {
+		Workbook workbook = createWorkbook();
+		Sheet sheet = getSheet(workbook, "Dates");
+		int styles = workbook.getNumCellStyles();
+
+		for (int i = 0; i < 1000; i++) {
+			write(getCell(sheet, i, 0), LocalDate.now(), workbook);
+			write(getCell(sheet, i, 1), LocalDate.now(), workbook, "yyyy/MM/dd");
+		}
+		// 형식마다 하나의 스타일만 생성
+		assertEquals(styles + 2, workbook.getNumCellStyles());
+		assertEquals(getCell(sheet, 0, 0).getCellStyle().getIndex(), getCell(sheet, 999, 0).getCellStyle().getIndex());
+		workbook.close();
+	}
+
+	@Test
+	void internedStyles() throws IOException {
+		Workbook workbook = createWorkbook();
+		int styles = workbook.getNumCellStyles();
+		int fonts = workbook.getNumberOfFontsAsInt();
+
+		CellStyle first = null;
+		for (int i = 0; i < 100; i++) {
+			Font font = new FontBuilder(workbook, true)
+					.bold()
+					.color(IndexedColors.BLUE)
+					.get();
+			CellStyle cellStyle = new CellStyleBuilder(workbook, true)
+					.align(HorizontalAlignment.RIGHT)
+					.background(IndexedColors.YELLOW)
+					.font(font)
+					.get();
+			if (null == first) first = cellStyle;
+			assertEquals(first.getIndex(), cellStyle.getIndex());
+		}
+		assertEquals(styles + 1, workbook.getNumCellStyles());
+		assertEquals(fonts + 1, workbook.getNumberOfFontsAsInt());
+		workbook.close();
+	}
+
+	@Test
+	void bulkWrite() throws IOException {
+		Workbook workbook = createWorkbook();
+		Sheet sheet = getSheet(workbook, "Bulk");
+
+		int next = writeRows(sheet, 0, Arrays.asList(
+				new Object[]{"Name", "Price", "Date"},
+				new Object[]{"Apple", 1.5, LocalDate.of(2021, 1, 1)},
+				new Object[]{"Banana", null, LocalDate.of(2021, 1, 2)}));
+		assertEquals(3, next);
+		assertNull(getCellOrNull(getRow(sheet, 2), 1));
+
+		next = new RowWriter<String>(sheet)
+				.string(s -> s)
+				.numeric(String::length)
+				.date(s -> LocalDate.of(2021, 2, s.length()))
+				.writeRows(next, Arrays.asList("Cherry", "Kiwi"));
+		assertEquals(5, next);
+		assertEquals("Kiwi", readString(getCell(sheet, 4, 0)));
+		assertEquals(4, readNumeric(getCell(sheet, 4, 1)));
+		assertEquals(LocalDate.of(2021, 2, 4), readLocalDate(getCell(sheet, 4, 2)));
+		assertEquals(getCell(sheet, 1, 2).getCellStyle().getIndex(), getCell(sheet, 4, 2).getCellStyle().getIndex());
+		workbook.close();
+	}
+
+	@Test
+	void estimatedWidth() throws IOException {
+		Workbook workbook = createWorkbook();
+		Sheet sheet = getSheet(workbook, "Widths");
+		final ColumnWidths widths = ColumnWidths.track(sheet);
+		writeRows(sheet, 0, Arrays.asList(
+				new Object[]{"Id", "Name", null, "이름"},
+				new Object[]{1, "A long product name", null, "긴 상품 이름입니다"}));
+		assertTrue(widths.getWidth(1) > widths.getWidth(0));
+		assertTrue(widths.getWidth(3) > widths.getWidth(1) / 2);
+		assertEquals(0, widths.getWidth(2));
+
+		autoWidthEstimated(sheet);
+		assertTrue(sheet.getColumnWidth(1) > sheet.getColumnWidth(0));
+		assertTrue(sheet.getColumnWidth(1) < 40 * 256);
+
+		Sheet other = getSheet(workbook, "Untracked");
+		write(getCell(other, 5, 7), "Not in the first row");
+		autoWidthEstimated(other);
+		// 소문자는 "0"보다 좁음
+		assertTrue(other.getColumnWidth(7) > 14 * 256);
+		assertTrue(other.getColumnWidth(7) < 20 * 256);
+
+		// 이미 디스크로 내보낸 행도 write() 할 때 추적
+		SXSSFWorkbook streaming = createStreamingWorkbook(1, false);
+		Sheet written = getSheet(streaming, "Written");
+		ColumnWidths.track(written);
+		write(getCell(written, 0, 0), "Not in the first row");
+		write(getCell(written, 1, 1), 12345.678);
+		autoWidthEstimated(written);
+		assertEquals(other.getColumnWidth(7), written.getColumnWidth(0));
+		assertTrue(written.getColumnWidth(1) > 256);
+		close(streaming);
+		workbook.close();
+	}
+
+	@Test
+	void parallelSheets() throws Exception {
+		final ParallelWorkbookBuilder builder = new ParallelWorkbookBuilder();
+		for (int i = 0; i < 4; i++) {
+			final int sheetNum = i;
+			builder.sheet("Sheet " + i, buffer -> {
+				buffer.writeRow(0, "Name", "Value", "Date");
+				for (int rowNum = 1; rowNum <= 1000; rowNum++) {
+					buffer.writeRow(rowNum, "Item " + rowNum, rowNum * sheetNum, LocalDate.of(2021, 1, 1));
+				}
+				buffer.write(1, 0, "First");
+				buffer.autoWidth();
+			});
+		}
+		Workbook workbook = builder.build(createWorkbook());
+		assertEquals(4, workbook.getNumberOfSheets());
+		assertEquals("Sheet 2", workbook.getSheetName(2));
+		Sheet sheet = workbook.getSheet("Sheet 3");
+		assertEquals("First", readString(getCell(sheet, 1, 0)));
+		assertEquals(3000, readNumeric(getCell(sheet, 1000, 1)));
+		assertEquals(LocalDate.of(2021, 1, 1), readLocalDate(getCell(sheet, 1000, 2)));
+		assertTrue(sheet.getColumnWidth(0) > 256);
+		close(workbook);
+
+		assertThrows(IllegalArgumentException.class, () -> new ParallelWorkbookBuilder()
+				.sheet("Bad", buffer -> buffer.write(-1, 0, 1))
+				.build(createWorkbook()));
+
+		assertThrows(IllegalArgumentException.class, () -> new ParallelWorkbookBuilder()
+				.sheet("Same", buffer -> buffer.write(0, 0, 1))
+				.sheet("same", buffer -> buffer.write(0, 0, 2)));
+
+		// 실패하면 실행 중인 다른 작업을 인터럽트
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch interrupted = new CountDownLatch(1);
+		final ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			assertThrows(IllegalStateException.class, () -> new ParallelWorkbookBuilder()
+					.sheet("Slow", buffer -> {
+						started.countDown();
+						try {
+							Thread.sleep(60_000);
+						} catch (InterruptedException e) {
+							interrupted.countDown();
+						}
+					})
+					.sheet("Failing", buffer -> {
+						try {
+							started.await();
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+						throw new IllegalStateException("Failed");
+					})
+					.build(createWorkbook(), executor));
+			assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void openFile() throws IOException {
+		File xls = new File(outFile1.getParentFile(), "open.xls");
+		File xlsx = new File(outFile1.getParentFile(), "open.xlsx");
+		for (File file : new File[]{xls, xlsx}) {
+			Workbook workbook = file == xls ? new HSSFWorkbook() : createWorkbook();
+			if (workbook instanceof HSSFWorkbook) {
+				((HSSFWorkbook) workbook).createInformationProperties();
+				((HSSFWorkbook) workbook).getSummaryInformation().setAuthor("someone");
+			}
+			write(getCell(getSheet(workbook, "Open"), 0, 0), file.getName());
+			writeOut(workbook, file);
+			workbook.close();
+		}
+
+		// 같은 파일에 다시 저장
+		Workbook workbook = getWorkbook(xls);
+		assertEquals("open.xls", readString(getCell(workbook.getSheet("Open"), 0, 0)));
+		write(getCell(workbook.getSheet("Open"), 0, 1), "writable");
+		writeOut(workbook, xls);
+		workbook.close();
+
+		workbook = getWorkbook(xls, true);
+		assertEquals("writable", readString(getCell(workbook.getSheet("Open"), 0, 1)));
+		assertEquals("someone", ((HSSFWorkbook) workbook).getSummaryInformation().getAuthor());
+		workbook.close();
+		assertTrue(xls.delete());
+
+		workbook = getWorkbook(xlsx.toPath());
+		write(getCell(workbook.getSheet("Open"), 0, 1), "writable");
+		writeOut(workbook, xlsx);
+		workbook.close();
+
+		workbook = getWorkbook(xlsx, true);
+		assertEquals("open.xlsx", readString(getCell(workbook.getSheet("Open"), 0, 0)));
+		assertEquals("writable", readString(getCell(workbook.getSheet("Open"), 0, 1)));
+		workbook.close();
+		assertTrue(xlsx.delete()); // handles are closed
+
+		assertThrows(IOException.class, () -> getWorkbook(xlsx));
+	}
+
+	private static SXSSFWorkbook channelWorkbook() {
+		SXSSFWorkbook workbook = createStreamingWorkbook();
+		Sheet sheet = getSheet(workbook, "Channel");
+		for (int i = 0; i < 1000; i++) {
+			write(getCell(sheet, i, 0), "Row " + i);
+		}
+		return workbook;
+	}
+
+	@Test
+	void writeToChannel() throws Exception {
+		File stored = new File(outFile1.getParentFile(), "stored.xlsx");
+		File best = new File(outFile1.getParentFile(), "best.xlsx");
+		SXSSFWorkbook workbook = channelWorkbook();
+		try (FileChannel channel = FileChannel.open(stored.toPath(),
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			writeOut(workbook, channel, 0);
+			assertTrue(channel.isOpen());
+		}
+		close(workbook);
+
+		workbook = channelWorkbook();
+		try (InputStream inputStream = openInputStream(workbook, 9);
+		     OutputStream outputStream = new FileOutputStream(best)) {
+			final byte[] buffer = new byte[8192];
+			int n;
+			while ((n = inputStream.read(buffer)) > 0) {
+				outputStream.write(buffer, 0, n);
+			}
+		}
+		close(workbook);
+		assertTrue(best.length() < stored.length());
+
+		try (XlsxReader reader = XlsxReader.open(best)) {
+			final int[] rows = new int[1];
+			reader.read("Channel", row -> rows[0]++);
+			assertEquals(1000, rows[0]);
+		}
+
+		// 읽기를 중단하면 쓰기도 중단
+		final CompletableFuture<IOException> failure = new CompletableFuture<>();
+		InputStream abandoned = WorkbookStreams.pipe(out -> {
+			try {
+				final byte[] chunk = new byte[1024];
+				while (true) {
+					out.write(chunk);
+				}
+			} catch (IOException e) {
+				failure.complete(e);
+				throw e;
+			}
+		});
+		assertTrue(abandoned.read() >= 0);
+		abandoned.close();
+		assertNotNull(failure.get(10, TimeUnit.SECONDS));
+	}
+
+	private static SXSSFWorkbook optionsWorkbook() {
+		SXSSFWorkbook workbook = createStreamingWorkbook(100, new WriteOptions().compressTempFiles(true));
+		Sheet sheet = getSheet(workbook, "Options");
+		for (int i = 0; i < 2000; i++) {
+			write(getCell(sheet, i, 0), "Row " + i);
+			write(getCell(sheet, i, 1), i);
+		}
+		return workbook;
+	}
+
+	@Test
+	void writeOptions() throws IOException {
+		File fastest = new File(outFile1.getParentFile(), "fastest.xlsx");
+		File smallest = new File(outFile1.getParentFile(), "smallest.xlsx");
+		SXSSFWorkbook workbook = optionsWorkbook();
+		writeOut(workbook, fastest, new WriteOptions().fastest());
+		close(workbook);
+		workbook = optionsWorkbook();
+		writeOut(workbook, smallest.getPath(), new WriteOptions().smallest().zip64(WriteOptions.Zip64.ALWAYS));
+		close(workbook);
+		assertTrue(smallest.length() < fastest.length());
+
+		Workbook read = getWorkbook(smallest);
+		assertEquals(1999, readNumeric(getCell(read.getSheet("Options"), 1999, 1)));
+		read.close();
+
+		// 스트리밍이 아닌 워크북은 다시 압축
+		File stored = new File(outFile1.getParentFile(), "options-stored.xlsx");
+		read = getWorkbook(smallest);
+		writeOut(read, stored, new WriteOptions().noCompression());
+		read.close();
+		assertTrue(stored.length() > smallest.length());
+		read = getWorkbook(stored);
+		assertEquals("Row 1999", readString(getCell(read.getSheet("Options"), 1999, 0)));
+		read.close();
+
+		assertThrows(IllegalArgumentException.class, () -> new WriteOptions().compressionLevel(10));
+	}
+
+	@Test
+	void metrics() throws IOException {
+		final XlsxStatistics statistics = new XlsxStatistics();
+		XlsxMetrics.setListener(statistics);
+		try {
+			Workbook workbook = createWorkbook();
+			Sheet sheet = getSheet(workbook, "Metrics");
+			writeRows(sheet, 0, Arrays.asList(
+					new Object[]{"Name", "Date"},
+					new Object[]{"Apple", null}));
+			write(getCell(sheet, 1, 1), LocalDate.of(2021, 1, 1), workbook);
+			new CellStyleBuilder(workbook, true).font(new FontBuilder(workbook).bold().get()).get();
+
+			File file = new File(outFile1.getParentFile(), "metrics.xlsx");
+			writeOut(workbook, file);
+			workbook.close();
+			getWorkbook(file).close();
+
+			assertEquals(2, statistics.getRows());
+			assertEquals(4, statistics.getCells());
+			assertEquals(1, statistics.getCellStylesBuilt());
+			assertEquals(1, statistics.getFontsBuilt());
+			assertEquals(1, statistics.getWrites());
+			assertEquals(file.length(), statistics.getBytesWritten());
+			assertEquals(1, statistics.getOpens());
+			assertEquals(file.length(), statistics.getBytesRead());
+		} finally {
+			XlsxMetrics.setListener(null);
+		}
+	}
+
+	@Test
+	void inlineStrings() throws IOException {
+		XSSFWorkbook workbook = new XSSFWorkbook();
+		InlineStrings.enable(workbook);
+		Sheet sheet = getSheet(workbook, "Inline");
+		write(getCell(sheet, 0, 0), " padded ");
+		writeRows(sheet, 1, Arrays.asList(new Object[]{"a", 1}, new Object[]{"b", 2}));
+		new RowWriter<String>(sheet).string(s -> s).writeRows(3, Arrays.asList("c", "d"));
+		assertEquals(0, workbook.getSharedStringSource().getCount());
+		assertEquals(" padded ", readString(getCell(sheet, 0, 0)));
+
+		File file = new File(outFile1.getParentFile(), "inline.xlsx");
+		writeOut(workbook, file);
+		workbook.close();
+
+		try (XlsxReader reader = XlsxReader.open(file)) {
+			final List<String> values = new ArrayList<>();
+			reader.read("Inline", row -> values.add(row.readString(0)));
+			assertEquals(Arrays.asList(" padded ", "a", "b", "c", "d"), values);
+		}
+		assertThrows(IllegalArgumentException.class, () -> InlineStrings.enable(new HSSFWorkbook()));
+	}
+
+	@Test
+	void formulas() throws IOException {
+		Workbook workbook = createWorkbook();
+		Sheet prices = getSheet(workbook, "Prices");
+		Sheet totals = getSheet(workbook, "Totals");
+		for (int i = 0; i < 10; i++) {
+			write(getCell(prices, i, 0), i + 1);
+			writeFormula(getCell(prices, i, 1), "A" + (i + 1) + "*2");
+			write(getCell(totals, i, 0), 10);
+			writeFormula(getCell(totals, i, 1), "A" + (i + 1) + "+1");
+		}
+		writeFormula(getCell(prices, 10, 1), "SUM(B1:B10)");
+
+		assertEquals(21, evaluateAll(workbook));
+		assertEquals(110, readNumeric(getCell(prices, 10, 1)));
+		assertSame(getFormulaEvaluator(workbook), getFormulaEvaluator(workbook));
+
+		write(getCell(prices, 0, 0), 11);
+		assertEquals(11, evaluate(prices));
+		assertEquals(22, readNumeric(getCell(prices, 0, 1)));
+		assertEquals(130, readNumeric(getCell(prices, 10, 1)));
+
+		assertEquals(1, evaluate(prices, new CellRangeAddress(10, 10, 0, 1)));
+
+		write(getCell(totals, 0, 0), 20);
+		assertEquals(21, evaluateAll(workbook, ForkJoinPool.commonPool()));
+		assertEquals(21, readNumeric(getCell(totals, 0, 1)));
+		assertEquals(130, readNumeric(getCell(prices, 10, 1)));
+		assertEquals(CellType.FORMULA, getCellType(getCell(totals, 0, 1)));
+		workbook.close();
+	}
+
+	@Test
+	void template() throws IOException {
+		XSSFWorkbook prototype = new XSSFWorkbook();
+		write(getCell(getSheet(prototype, "Report"), 0, 0), "Title");
+		WorkbookTemplate template = new WorkbookTemplate.Builder(prototype)
+				.style("header", wb -> new CellStyleBuilder(wb).background(IndexedColors.YELLOW).get())
+				.build();
+		assertTrue(template.getSize() > 0);
+
+		for (int i = 0; i < 2; i++) {
+			Workbook workbook = template.newWorkbook();
+			Sheet sheet = getSheet(workbook, "Report");
+			assertEquals("Title", readString(getCell(sheet, 0, 0)));
+			CellStyle header = template.getCellStyle(workbook, "header");
+			assertEquals(IndexedColors.YELLOW.getIndex(), header.getFillForegroundColor());
+			getCell(sheet, 1, 0).setCellStyle(header);
+			workbook.close();
+		}
+
+		SXSSFWorkbook streaming = template.newStreamingWorkbook(100);
+		write(getCell(getSheet(streaming, "Report"), 1, 0), "Row");
+		assertThrows(IllegalStateException.class, () -> template.getCellStyle(streaming, "none"));
+		close(streaming);
+	}
+
+	@Test
+	void templateFromFile() throws IOException {
+		File file = new File("build/unit-tests/template.xlsx");
+		Workbook prototype = createWorkbook();
+		write(getCell(getSheet(prototype, "Report"), 0, 0), "Title");
+		try (FileOutputStream outputStream = new FileOutputStream(file)) {
+			writeOut(prototype, outputStream);
+		}
+		prototype.close();
+		long length = file.length();
+
+		WorkbookTemplate template = new WorkbookTemplate.Builder(file)
+				.style("header", wb -> new CellStyleBuilder(wb).background(IndexedColors.YELLOW).get())
+				.build();
+		assertEquals(length, file.length());
+
+		Workbook workbook = template.newWorkbook();
+		assertEquals("Title", readString(getCell(getSheet(workbook, "Report"), 0, 0)));
+		assertEquals(IndexedColors.YELLOW.getIndex(),
+				template.getCellStyle(workbook, "header").getFillForegroundColor());
+		workbook.close();
+
+		workbook = WorkbookTemplate.of(file).newWorkbook();
+		assertEquals("Title", readString(getCell(getSheet(workbook, "Report"), 0, 0)));
+		workbook.close();
+	}
+
+	@Test
+	void session() throws IOException {
+		final List<String> closed = new ArrayList<>();
+		final WorkbookSession session = new WorkbookSession();
+		try {
+			SXSSFWorkbook workbook = session.createStreamingWorkbook();
+			write(getCell(getSheet(workbook, "Data"), 0, 0), "Value");
+			session.createWorkbook();
+			session.register(() -> closed.add("first"));
+			session.register(() -> {
+				throw new IOException("Failed");
+			});
+			session.register(() -> closed.add("last"));
+			assertEquals(5, session.size());
+		} finally {
+			assertThrows(IOException.class, session::close);
+		}
+		assertEquals(Arrays.asList("last", "first"), closed);
+		assertEquals(0, session.size());
+		assertThrows(IllegalStateException.class, session::createWorkbook);
+		// 닫힌 세션에 등록하면 바로 닫는다
+		assertThrows(IllegalStateException.class, () -> session.register(() -> closed.add("late")));
+		assertEquals(Arrays.asList("last", "first", "late"), closed);
+		session.close();
+	}
+
+	@Test
+	void async() throws Exception {
+		SXSSFWorkbook workbook = createStreamingWorkbook();
+		RowWriter<Integer> writer = new RowWriter<Integer>(getSheet(workbook, "Numbers"))
+				.numeric(i -> i)
+				.string(i -> "Item " + i);
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		int next = new ExportPipeline<>(writer)
+				.queueSize(16)
+				.startRow(1)
+				.export(sink -> {
+					for (int i = 0; i < 1000; i++) {
+						sink.accept(i);
+					}
+				}, outputStream)
+				.get(30, TimeUnit.SECONDS);
+		assertEquals(1001, next);
+		close(workbook);
+
+		Workbook copy = getXSSFWorkbook(new ByteArrayInputStream(outputStream.toByteArray()));
+		assertEquals("Item 999", readString(getCell(getSheet(copy, "Numbers"), 1000, 1)));
+		File file = new File(outFile1.getParentFile(), "async.xlsx");
+		writeOutAsync(copy, file).get(30, TimeUnit.SECONDS);
+		copy.close();
+		Workbook opened = getWorkbookAsync(file).get(30, TimeUnit.SECONDS);
+		assertEquals(999, readNumeric(getCell(getSheet(opened, "Numbers"), 1000, 0)));
+		opened.close();
+
+		SXSSFWorkbook failing = createStreamingWorkbook();
+		ExecutionException e = assertThrows(ExecutionException.class, () -> new ExportPipeline<>(
+				new RowWriter<Integer>(getSheet(failing, "Numbers")).numeric(i -> i))
+				.run(sink -> {
+					sink.accept(1);
+					throw new IOException("Failed");
+				})
+				.get(30, TimeUnit.SECONDS));
+		assertTrue(e.getCause() instanceof IOException);
+		close(failing);
+
+		// 취소하면 두 단계 모두 중단, 워크북을 쓰지 않음
+		SXSSFWorkbook cancelled = createStreamingWorkbook();
+		ByteArrayOutputStream unused = new ByteArrayOutputStream();
+		CountDownLatch fetched = new CountDownLatch(100);
+		CountDownLatch stopped = new CountDownLatch(1);
+		CompletableFuture<Integer> future = new ExportPipeline<>(
+				new RowWriter<Integer>(getSheet(cancelled, "Numbers")).numeric(i -> i))
+				.queueSize(16)
+				.export(sink -> {
+					try {
+						for (int i = 0; ; i++) {
+							sink.accept(i);
+							fetched.countDown();
+						}
+					} finally {
+						stopped.countDown();
+					}
+				}, unused);
+		assertTrue(fetched.await(30, TimeUnit.SECONDS));
+		assertTrue(future.cancel(true));
+		assertTrue(stopped.await(30, TimeUnit.SECONDS));
+		Thread.sleep(300);
+		assertEquals(0, unused.size());
+		close(cancelled);
+
+		e = assertThrows(ExecutionException.class, () -> getWorkbookAsync(new File("none.xlsx")).get());
+		assertTrue(e.getCause() instanceof FileNotFoundException);
+	}
+}